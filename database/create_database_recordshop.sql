@@ -36,6 +36,13 @@ CREATE TABLE profiles (
     FOREIGN KEY (user_id) REFERENCES users(user_id)
 );
 
+CREATE TABLE schema_version (
+    version INT NOT NULL,
+    description VARCHAR(200) NOT NULL,
+    installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (version)
+);
+
 CREATE TABLE categories (
     category_id INT NOT NULL AUTO_INCREMENT,
     name VARCHAR(100) NOT NULL,
@@ -50,11 +57,14 @@ CREATE TABLE products (
     category_id INT NOT NULL,
     description TEXT,
     subcategory VARCHAR(20),
+    subcategory_normalized VARCHAR(20) AS (LOWER(subcategory)) STORED,
     image_url VARCHAR(200),
     stock INT NOT NULL DEFAULT 0,
     featured BOOL NOT NULL DEFAULT 0,
     PRIMARY KEY (product_id),
-    FOREIGN KEY (category_id) REFERENCES categories(category_id)
+    FOREIGN KEY (category_id) REFERENCES categories(category_id),
+    INDEX ix_products_category_price (category_id, price),
+    INDEX ix_products_category_subcategory (category_id, subcategory_normalized)
 );
 
 CREATE TABLE orders (
@@ -67,7 +77,9 @@ CREATE TABLE orders (
     zip VARCHAR(20) NOT NULL,
     shipping_amount DECIMAL(10, 2) NOT NULL DEFAULT 0,
     PRIMARY KEY (order_id),
-    FOREIGN KEY (user_id) REFERENCES users(user_id)
+    FOREIGN KEY (user_id) REFERENCES users(user_id),
+    INDEX ix_orders_user_date (user_id, date, order_id),
+    INDEX ix_orders_date (date, order_id)
 );
 
 CREATE TABLE order_line_items (
@@ -93,6 +105,11 @@ CREATE TABLE shopping_cart (
 );
 
 
+/* Schema version: this script already contains every migration in src/main/resources/db/migration */
+INSERT INTO schema_version (version, description)
+VALUES  (1, 'products subcategory normalized and indexes'),
+        (2, 'orders history indexes');
+
 /*  INSERT Users  */
 INSERT INTO users (username, hashed_password, role) 
 VALUES  ('user','$2a$10$NkufUPF3V8dEPSZeo1fzHe9ScBu.LOay9S3N32M84yuUM2OJYEJ/.','ROLE_USER'),
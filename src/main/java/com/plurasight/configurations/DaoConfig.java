@@ -0,0 +1,56 @@
+package com.plurasight.configurations;
+
+import com.plurasight.data.coalescing.CoalescingCategoryDao;
+import com.plurasight.data.coalescing.CoalescingProductDao;
+import com.plurasight.data.memory.InMemoryProductDao;
+import com.plurasight.data.memory.WriteBehindShoppingCartDao;
+import com.plurasight.data.mysql.MySqlCategoryDao;
+import com.plurasight.data.mysql.MySqlProductDao;
+import com.plurasight.data.mysql.MySqlShoppingCartDao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class DaoConfig
+{
+    // concurrent identical reads that do reach MySQL share one query
+    @Bean
+    public CoalescingProductDao coalescingProductDao(MySqlProductDao mySqlProductDao)
+    {
+        return new CoalescingProductDao(mySqlProductDao);
+    }
+
+    // controllers get the in-memory catalog, which reads through to MySQL only on writes
+    @Bean(initMethod = "warmUp")
+    @DependsOn("schemaMigrator")
+    @Primary
+    public InMemoryProductDao productDao(CoalescingProductDao coalescingProductDao,
+                                         @Value("${catalog.search-cache.max-products:100000}") long searchCacheMaxProducts,
+                                         @Value("${catalog.search-cache.ttl-seconds:300}") long searchCacheTtlSeconds)
+    {
+        return new InMemoryProductDao(coalescingProductDao, searchCacheMaxProducts, searchCacheTtlSeconds * 1000);
+    }
+
+    @Bean
+    @Primary
+    public CoalescingCategoryDao categoryDao(MySqlCategoryDao mySqlCategoryDao)
+    {
+        return new CoalescingCategoryDao(mySqlCategoryDao);
+    }
+
+    // carts live in memory and are written to MySQL in batches; turn off to use MySqlShoppingCartDao directly
+    @Bean(initMethod = "start", destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "cart.write-behind.enabled", havingValue = "true", matchIfMissing = true)
+    @Primary
+    public WriteBehindShoppingCartDao shoppingCartDao(MySqlShoppingCartDao mySqlShoppingCartDao,
+                                                      InMemoryProductDao productDao,
+                                                      @Value("${cart.write-behind.flush-interval-ms:500}") long flushIntervalMillis,
+                                                      @Value("${cart.write-behind.idle-minutes:30}") long idleMinutes)
+    {
+        return new WriteBehindShoppingCartDao(mySqlShoppingCartDao, productDao, flushIntervalMillis, idleMinutes * 60 * 1000);
+    }
+}
@@ -1,5 +1,6 @@
 package com.plurasight.configurations;
 
+import com.plurasight.data.mysql.SchemaMigrator;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,6 +18,13 @@ public class DatabaseConfig
         return basicDataSource;
     }
 
+    // brings whichever store schema the datasource points at up to the latest version
+    @Bean(initMethod = "migrate")
+    public SchemaMigrator schemaMigrator()
+    {
+        return new SchemaMigrator(basicDataSource);
+    }
+
     @Autowired
     public DatabaseConfig(@Value("${datasource.url}") String url,
                           @Value("${datasource.username}") String username,
@@ -26,6 +34,9 @@ public class DatabaseConfig
         basicDataSource.setUrl(url);
         basicDataSource.setUsername(username);
         basicDataSource.setPassword(password);
+
+        // lets Connector/J send JDBC batches as multi-row statements
+        basicDataSource.addConnectionProperty("rewriteBatchedStatements", "true");
     }
 
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.plurasight.controllers;
 
 import javax.validation.Valid;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +17,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import com.plurasight.models.Profile;
 import com.plurasight.data.ProfileDao;
+import com.plurasight.data.ShoppingCartDao;
 import com.plurasight.data.UserDao;
 import com.plurasight.models.authentication.LoginDto;
 import com.plurasight.models.authentication.LoginResponseDto;
@@ -22,22 +25,32 @@ import com.plurasight.models.authentication.RegisterUserDto;
 import com.plurasight.models.User;
 import com.plurasight.security.jwt.JWTFilter;
 import com.plurasight.security.jwt.TokenProvider;
+import com.plurasight.services.GuestCartStore;
+
+import java.util.Map;
 
 @RestController
 @CrossOrigin
 @PreAuthorize("permitAll()")
 public class AuthenticationController {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AuthenticationController.class);
+
     private final TokenProvider tokenProvider;
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
     private UserDao userDao;
     private ProfileDao profileDao;
+    private ShoppingCartDao shoppingCartDao;
+    private GuestCartStore guestCarts;
 
-    public AuthenticationController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder, UserDao userDao, ProfileDao profileDao) {
+    public AuthenticationController(TokenProvider tokenProvider, AuthenticationManagerBuilder authenticationManagerBuilder, UserDao userDao, ProfileDao profileDao,
+                                    ShoppingCartDao shoppingCartDao, GuestCartStore guestCarts) {
         this.tokenProvider = tokenProvider;
         this.authenticationManagerBuilder = authenticationManagerBuilder;
         this.userDao = userDao;
         this.profileDao = profileDao;
+        this.shoppingCartDao = shoppingCartDao;
+        this.guestCarts = guestCarts;
     }
 
     @RequestMapping(value = "/login", method = RequestMethod.POST)
@@ -56,6 +69,8 @@ public class AuthenticationController {
 
             if (user == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
 
+            mergeGuestCart(user.getId(), loginDto.getGuestCartId());
+
             HttpHeaders httpHeaders = new HttpHeaders();
             httpHeaders.add(JWTFilter.AUTHORIZATION_HEADER, "Bearer " + jwt);
             return new ResponseEntity<>(new LoginResponseDto(jwt, user), httpHeaders, HttpStatus.OK);
@@ -66,6 +81,19 @@ public class AuthenticationController {
         }
     }
 
+    // move the guest cart into the user's cart in one batch; an expired guest cart is simply ignored
+    // the login has already succeeded, so a failed merge is logged instead of failing it
+    private void mergeGuestCart(int userId, String guestCartId) {
+        Map<Integer, Integer> guestCart = guestCarts.take(guestCartId);
+        if (guestCart == null) return;
+
+        try {
+            shoppingCartDao.addAll(userId, guestCart);
+        } catch (RuntimeException ex) {
+            LOG.error("Merging guest cart {} into the cart of user {} failed, lost items: {}", guestCartId, userId, guestCart, ex);
+        }
+    }
+
     @ResponseStatus(HttpStatus.CREATED)
     @RequestMapping(value = "/register", method = RequestMethod.POST)
     public ResponseEntity<User> register(@Valid @RequestBody RegisterUserDto newUser) {
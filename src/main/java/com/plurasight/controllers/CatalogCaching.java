@@ -0,0 +1,99 @@
+package com.plurasight.controllers;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Locale;
+
+// conditional GET handling for the public catalog endpoints
+final class CatalogCaching
+{
+    // caches may keep the response but have to revalidate it, which costs us only a 304
+    static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
+    private CatalogCaching()
+    {
+    }
+
+    static boolean isNotModified(String ifNoneMatch, String etag)
+    {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) return false;
+
+        for (String candidate : ifNoneMatch.split(","))
+        {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) return true;
+            if (candidate.startsWith("W/")) candidate = candidate.substring(2);
+            if (candidate.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag)
+    {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .build();
+    }
+
+    // for responses sent in more than one encoding; the 304 varies the way the full response does
+    static <T> ResponseEntity<T> notModifiedVaryingEncoding(String etag)
+    {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    // a strong ETag names one exact byte sequence, so the gzipped body gets a tag of its own
+    static String encodedEtag(String etag, boolean gzip)
+    {
+        if (!gzip) return etag;
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    // true when Accept-Encoding allows gzip with a q-value above 0, either by name or through *
+    static boolean acceptsGzip(String acceptEncoding)
+    {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) return false;
+
+        Double gzip = null;
+        Double any = null;
+        for (String part : acceptEncoding.split(","))
+        {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+
+            double q = 1;
+            for (int i = 1; i < params.length; i++)
+            {
+                String param = params[i].trim();
+                if (param.length() > 2 && param.substring(0, 2).equalsIgnoreCase("q="))
+                {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException ex) {
+                        q = 0;
+                    }
+                }
+            }
+
+            if (coding.equals("gzip") || coding.equals("x-gzip")) gzip = q;
+            else if (coding.equals("*")) any = q;
+        }
+
+        if (gzip != null) return gzip > 0;
+        return any != null && any > 0;
+    }
+
+    static ResponseEntity.BodyBuilder ok(String etag)
+    {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL);
+    }
+}
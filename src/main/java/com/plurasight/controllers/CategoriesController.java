@@ -1,38 +1,56 @@
 package com.plurasight.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import com.plurasight.data.CategoryDao;
 import com.plurasight.data.ProductDao;
+import com.plurasight.data.ProductProjection;
 import com.plurasight.models.Category;
 import com.plurasight.models.Product;
+import com.plurasight.models.ProductPage;
+import com.plurasight.services.CatalogVersionService;
+import com.plurasight.services.CategoryResponseCache;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/categories")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = ProductPaging.NEXT_CURSOR_HEADER)
 public class CategoriesController
 {
     private final CategoryDao categoryDao;
     private final ProductDao productDao;
+    private final CatalogVersionService catalogVersions;
+    private final CategoryResponseCache categoryCache;
 
     @Autowired
-    public CategoriesController(CategoryDao categoryDao, ProductDao productDao) {
+    public CategoriesController(CategoryDao categoryDao, ProductDao productDao, CatalogVersionService catalogVersions,
+                                CategoryResponseCache categoryCache) {
         this.categoryDao = categoryDao;
         this.productDao = productDao;
+        this.catalogVersions = catalogVersions;
+        this.categoryCache = categoryCache;
     }
 
+    // categories are answered with the cached, already serialized JSON
     @GetMapping("")
     @PreAuthorize("permitAll()")
-    public List<Category> getAll()
+    public ResponseEntity<byte[]> getAll(@RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch,
+                                         @RequestHeader(name = "Accept-Encoding", required = false) String acceptEncoding)
     {
         try {
-            return categoryDao.getAllCategories();
+            boolean gzip = CatalogCaching.acceptsGzip(acceptEncoding);
+            String etag = CatalogCaching.encodedEtag(catalogVersions.categoriesEtag(), gzip);
+            if (CatalogCaching.isNotModified(ifNoneMatch, etag)) return CatalogCaching.notModifiedVaryingEncoding(etag);
+
+            return json(CatalogCaching.ok(etag), categoryCache.all(), gzip);
         } catch(Exception ex) {
             ex.printStackTrace();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
@@ -41,12 +59,18 @@ public class CategoriesController
 
     @GetMapping("/{id}")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<Category> getById(@PathVariable int id)
+    public ResponseEntity<byte[]> getById(@PathVariable int id,
+                                          @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch,
+                                          @RequestHeader(name = "Accept-Encoding", required = false) String acceptEncoding)
     {
         try {
-            Category category = categoryDao.getById(id);
+            boolean gzip = CatalogCaching.acceptsGzip(acceptEncoding);
+            String etag = CatalogCaching.encodedEtag(catalogVersions.categoryEtag(id), gzip);
+            if (CatalogCaching.isNotModified(ifNoneMatch, etag)) return CatalogCaching.notModifiedVaryingEncoding(etag);
+
+            CategoryResponseCache.CachedJson category = categoryCache.byId(id);
             if (category == null) return ResponseEntity.notFound().build();
-            return ResponseEntity.ok(category);
+            return json(CatalogCaching.ok(etag), category, gzip);
         } catch(Exception ex) {
             ex.printStackTrace();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
@@ -55,26 +79,41 @@ public class CategoriesController
 
     @GetMapping("{categoryId}/products")
     @PreAuthorize("permitAll()")
-    public List<Product> getProductsByCategory(
+    public ResponseEntity<MappingJacksonValue> getProductsByCategory(
             @PathVariable int categoryId,
-            @RequestParam(required = false) String subCategory
+            @RequestParam(required = false) String subCategory,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(name = "If-None-Match", required = false) String ifNoneMatch
     ) {
         try {
-            Category category = categoryDao.getById(categoryId);
-            if(category == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
-
-            List<Product> products;
-            if(subCategory == null || subCategory.isEmpty()) {
-                products = productDao.listByCategoryId(categoryId);
-            } else {
-                products = productDao.search(categoryId, null, null, subCategory);
+            String etag = catalogVersions.categoryProductsEtag(categoryId);
+            if(CatalogCaching.isNotModified(ifNoneMatch, etag)) return CatalogCaching.notModified(etag);
+
+            if(!categoryCache.exists(categoryId)) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+
+            ProductProjection projection = ProductPaging.projection(fields);
+
+            if(ProductPaging.requested(limit, after)) {
+                ProductPage page = productDao.searchPage(categoryId, null, null, subCategory,
+                        ProductPaging.after(after), ProductPaging.limit(limit), projection);
+                if(after == null && page.getProducts().isEmpty()) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+                }
+                return ProductPaging.toResponse(CatalogCaching.ok(etag), page, projection);
             }
 
+            // an empty sub category is ignored by search, so this also covers the plain category listing
+            List<Product> products = productDao.search(categoryId, null, null, subCategory, projection);
+
             if(products == null || products.isEmpty()) {
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND);
             }
 
-            return products;
+            return CatalogCaching.ok(etag).body(ProductPaging.body(products, projection));
+        } catch(ResponseStatusException ex) {
+            throw ex;
         } catch(Exception ex) {
             ex.printStackTrace();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
@@ -87,6 +126,11 @@ public class CategoriesController
     {
         try {
             Category created = categoryDao.create(category);
+            if (created != null) {
+                // cache first, so a new ETag never comes with the old body
+                categoryCache.categoryChanged(created.getCategoryId());
+                catalogVersions.categoryChanged(created.getCategoryId());
+            }
             return ResponseEntity.status(HttpStatus.CREATED).body(created);
         } catch(Exception ex) {
             ex.printStackTrace();
@@ -100,6 +144,8 @@ public class CategoriesController
     {
         try {
             Category updated = categoryDao.update(id, category);
+            categoryCache.categoryChanged(id);
+            catalogVersions.categoryChanged(id);
             if (updated == null) return ResponseEntity.notFound().build();
             return ResponseEntity.ok(updated);
         } catch(Exception ex) {
@@ -113,13 +159,24 @@ public class CategoriesController
     public ResponseEntity<Void> deleteCategory(@PathVariable int id)
     {
         try {
-            Category category = categoryDao.getById(id);
-            if(category == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            if(!categoryCache.exists(id)) throw new ResponseStatusException(HttpStatus.NOT_FOUND);
             categoryDao.delete(id);
+            categoryCache.categoryChanged(id);
+            catalogVersions.categoryChanged(id);
             return ResponseEntity.noContent().build();
         } catch(Exception ex) {
             ex.printStackTrace();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
         }
     }
-}
\ No newline at end of file
+
+    // sends the gzipped bytes as they are when the client accepts gzip
+    private static ResponseEntity<byte[]> json(ResponseEntity.BodyBuilder builder, CategoryResponseCache.CachedJson body,
+                                               boolean gzip)
+    {
+        builder.contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if(gzip)
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        return builder.body(body.json());
+    }
+}
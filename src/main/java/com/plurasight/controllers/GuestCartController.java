@@ -0,0 +1,111 @@
+package com.plurasight.controllers;
+
+import com.plurasight.data.ProductDao;
+import com.plurasight.models.CartItemChange;
+import com.plurasight.models.Product;
+import com.plurasight.models.ShoppingCart;
+import com.plurasight.models.ShoppingCartItem;
+import com.plurasight.services.GuestCartStore;
+import com.plurasight.utils.IntObjectMap;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+// carts for visitors who are not logged in; the front end keeps the guest cart id and sends it on login
+@RestController
+@RequestMapping("/guest-cart")
+@CrossOrigin
+@PreAuthorize("permitAll()")
+public class GuestCartController
+{
+    private final GuestCartStore guestCarts;
+    private final ProductDao productDao;
+
+    public GuestCartController(GuestCartStore guestCarts, ProductDao productDao)
+    {
+        this.guestCarts = guestCarts;
+        this.productDao = productDao;
+    }
+
+    // POST /guest-cart
+    @PostMapping
+    public ResponseEntity<Map<String, String>> create()
+    {
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("guestCartId", guestCarts.create()));
+    }
+
+    // GET /guest-cart/{guestCartId}
+    @GetMapping("/{guestCartId}")
+    public ShoppingCart getCart(@PathVariable String guestCartId)
+    {
+        return toShoppingCart(quantities(guestCartId));
+    }
+
+    // POST /guest-cart/{guestCartId}/products/{productId}
+    @PostMapping("/{guestCartId}/products/{productId}")
+    public ResponseEntity<Void> addProduct(@PathVariable String guestCartId, @PathVariable int productId)
+    {
+        if (productDao.getById(productId) == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
+
+        if (!guestCarts.add(guestCartId, productId, 1))
+        {
+            quantities(guestCartId); // 404 when the cart is gone
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + GuestCartStore.MAX_LINES + " products per cart");
+        }
+
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    // PATCH /guest-cart/{guestCartId}, same body as PATCH /cart
+    @PatchMapping("/{guestCartId}")
+    public ShoppingCart applyChanges(@PathVariable String guestCartId, @RequestBody List<CartItemChange> changes)
+    {
+        if (changes == null || changes.size() > GuestCartStore.MAX_LINES || changes.contains(null))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Send between 0 and " + GuestCartStore.MAX_LINES + " changes");
+
+        // unknown products are skipped, like in the user cart
+        IntObjectMap<Product> products = productDao.getByIds(changes.stream().map(CartItemChange::getProductId).toList());
+        List<CartItemChange> known = changes.stream()
+                .filter(change -> change.getQuantity() <= 0 || products.containsKey(change.getProductId()))
+                .toList();
+
+        if (!guestCarts.applyChanges(guestCartId, known))
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Guest cart not found");
+        return toShoppingCart(quantities(guestCartId));
+    }
+
+    // DELETE /guest-cart/{guestCartId}
+    @DeleteMapping("/{guestCartId}")
+    public ResponseEntity<Void> delete(@PathVariable String guestCartId)
+    {
+        if (!guestCarts.delete(guestCartId))
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Guest cart not found");
+        return ResponseEntity.noContent().build();
+    }
+
+    private Map<Integer, Integer> quantities(String guestCartId)
+    {
+        Map<Integer, Integer> quantities = guestCarts.get(guestCartId);
+        if (quantities == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Guest cart not found");
+        return quantities;
+    }
+
+    private ShoppingCart toShoppingCart(Map<Integer, Integer> quantities)
+    {
+        IntObjectMap<Product> products = productDao.getByIds(quantities.keySet());
+
+        ShoppingCart cart = new ShoppingCart();
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product != null) cart.add(new ShoppingCartItem(product, quantity));
+        });
+        return cart;
+    }
+}
@@ -0,0 +1,76 @@
+package com.plurasight.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import com.plurasight.data.coalescing.CoalescingCategoryDao;
+import com.plurasight.data.coalescing.CoalescingProductDao;
+import com.plurasight.data.coalescing.SingleFlight;
+import com.plurasight.data.memory.InMemoryProductDao;
+import com.plurasight.data.memory.SearchResultCache;
+import com.plurasight.services.GuestCartStore;
+import com.plurasight.services.InventoryService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/metrics")
+@CrossOrigin
+@PreAuthorize("hasRole('ROLE_ADMIN')")
+public class MetricsController
+{
+    private final InMemoryProductDao productDao;
+    private final CoalescingProductDao coalescingProductDao;
+    private final CoalescingCategoryDao coalescingCategoryDao;
+    private final GuestCartStore guestCarts;
+    private final InventoryService inventory;
+
+    @Autowired
+    public MetricsController(InMemoryProductDao productDao,
+                             CoalescingProductDao coalescingProductDao,
+                             CoalescingCategoryDao coalescingCategoryDao,
+                             GuestCartStore guestCarts,
+                             InventoryService inventory)
+    {
+        this.productDao = productDao;
+        this.coalescingProductDao = coalescingProductDao;
+        this.coalescingCategoryDao = coalescingCategoryDao;
+        this.guestCarts = guestCarts;
+        this.inventory = inventory;
+    }
+
+    // GET http://localhost:8080/metrics/search-cache
+    @GetMapping("/search-cache")
+    public SearchResultCache.Stats searchCache()
+    {
+        return productDao.searchCacheStats();
+    }
+
+    // GET http://localhost:8080/metrics/coalescing
+    // collapsed = calls that shared another caller's database call instead of making their own
+    @GetMapping("/coalescing")
+    public Map<String, SingleFlight.Stats> coalescing()
+    {
+        Map<String, SingleFlight.Stats> stats = new LinkedHashMap<>();
+        stats.put("products", coalescingProductDao.stats());
+        stats.put("categories", coalescingCategoryDao.stats());
+        return stats;
+    }
+
+    // GET http://localhost:8080/metrics/guest-carts
+    // estimatedBytes is a rough heap estimate from the number of carts and lines
+    @GetMapping("/guest-carts")
+    public GuestCartStore.Stats guestCarts()
+    {
+        return guestCarts.stats();
+    }
+
+    // GET http://localhost:8080/metrics/inventory
+    // rejected = reservations turned away in memory because a product was short
+    @GetMapping("/inventory")
+    public InventoryService.Stats inventory()
+    {
+        return inventory.stats();
+    }
+}
@@ -0,0 +1,151 @@
+package com.plurasight.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.plurasight.data.OrderDao;
+import com.plurasight.data.OutOfStockException;
+import com.plurasight.models.Order;
+import com.plurasight.models.OrderPage;
+import com.plurasight.services.CheckoutService;
+import com.plurasight.services.UserIdCache;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.Principal;
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/orders")
+@CrossOrigin
+@PreAuthorize("isAuthenticated()")
+public class OrdersController
+{
+    private final CheckoutService checkoutService;
+    private final OrderDao orderDao;
+    private final UserIdCache userIds;
+    private final ObjectMapper objectMapper;
+
+    public OrdersController(CheckoutService checkoutService, OrderDao orderDao, UserIdCache userIds, ObjectMapper objectMapper)
+    {
+        this.checkoutService = checkoutService;
+        this.orderDao = orderDao;
+        this.userIds = userIds;
+        this.objectMapper = objectMapper;
+    }
+
+    // GET /orders?after=<nextCursor>&limit=20
+    // the caller's orders, newest first
+    @GetMapping
+    public OrderPage getOrders(@RequestParam(name = "after", required = false) String after,
+                               @RequestParam(name = "limit", defaultValue = "" + OrderPage.DEFAULT_LIMIT) int limit,
+                               Principal principal)
+    {
+        int userId = userId(principal);
+        return page(userId, after, limit);
+    }
+
+    // GET /orders/users/{userId}?after=<nextCursor>&limit=20
+    // any user's orders, for support staff
+    @GetMapping("/users/{userId}")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public OrderPage getOrdersOfUser(@PathVariable int userId,
+                                     @RequestParam(name = "after", required = false) String after,
+                                     @RequestParam(name = "limit", defaultValue = "" + OrderPage.DEFAULT_LIMIT) int limit)
+    {
+        return page(userId, after, limit);
+    }
+
+    // GET /orders/export?from=2026-01-01&to=2026-02-01
+    // every order placed from the start of from up to the start of to, one JSON order per line, oldest first
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
+    {
+        if (!from.isBefore(to))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+
+        ObjectWriter writer = objectMapper.writerFor(Order.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream))
+            {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+
+                orderDao.streamByDate(from.atStartOfDay(), to.atStartOfDay(), order -> {
+                    try {
+                        writer.writeValue(generator, order);
+                    } catch(IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+
+                generator.writeRaw('\n');
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // POST /orders
+    // places the current cart as an order; 409 with the product ids when stock ran out, nothing is ordered then
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Order checkout(Principal principal)
+    {
+        int userId = userId(principal);
+
+        try
+        {
+            return checkoutService.checkout(userId);
+        }
+        catch (OutOfStockException e)
+        {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+        catch (IllegalStateException e)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private OrderPage page(int userId, String after, int limit)
+    {
+        if (limit < 1)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+
+        OrderPage.Cursor cursor = null;
+        if (after != null && !after.isEmpty())
+        {
+            try {
+                cursor = OrderPage.decodeCursor(after);
+            } catch (IllegalArgumentException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+
+        return orderDao.getByUserId(userId, cursor, Math.min(limit, OrderPage.MAX_LIMIT));
+    }
+
+    private int userId(Principal principal)
+    {
+        int userId = userIds.getId(principal.getName());
+        if (userId < 0)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found");
+        return userId;
+    }
+}
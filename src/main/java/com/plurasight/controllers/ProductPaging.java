@@ -0,0 +1,70 @@
+package com.plurasight.controllers;
+
+import com.plurasight.data.ProductProjection;
+import com.plurasight.models.Product;
+import com.plurasight.models.ProductPage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+// shared limit/after handling for the paginated product listings
+final class ProductPaging
+{
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private ProductPaging()
+    {
+    }
+
+    static boolean requested(Integer limit, String after)
+    {
+        return limit != null || after != null;
+    }
+
+    static int limit(Integer limit)
+    {
+        if (limit == null) return ProductPage.DEFAULT_LIMIT;
+        if (limit < 1)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        return Math.min(limit, ProductPage.MAX_LIMIT);
+    }
+
+    static Integer after(String cursor)
+    {
+        if (cursor == null || cursor.isEmpty()) return null;
+        try {
+            return ProductPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    static ProductProjection projection(String fields)
+    {
+        try {
+            return ProductProjection.fromParameter(fields);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+
+    // serializes the products with the Jackson view that matches the projection
+    static MappingJacksonValue body(List<Product> products, ProductProjection projection)
+    {
+        MappingJacksonValue body = new MappingJacksonValue(products);
+        if (projection == ProductProjection.SUMMARY)
+            body.setSerializationView(Product.Views.Summary.class);
+        return body;
+    }
+
+    // the body stays a plain product list; the cursor for the next page travels in a header
+    static ResponseEntity<MappingJacksonValue> toResponse(ResponseEntity.BodyBuilder response, ProductPage page, ProductProjection projection)
+    {
+        if (page.getNextCursor() != null)
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        return response.body(body(page.getProducts(), projection));
+    }
+}
@@ -1,54 +1,234 @@
 package com.plurasight.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.plurasight.data.ProductDao;
+import com.plurasight.data.ProductProjection;
+import com.plurasight.services.CatalogVersionService;
+import com.plurasight.services.InventoryService;
+import com.plurasight.services.PriceStockUpdateService;
+import com.plurasight.services.ProductImportService;
+import com.plurasight.models.BulkImportResult;
+import com.plurasight.models.BulkUpdateReport;
+import com.plurasight.models.PriceStockUpdate;
 import com.plurasight.models.Product;
+import com.plurasight.models.ProductFacets;
+import com.plurasight.models.ProductPage;
+import com.plurasight.utils.IntObjectMap;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/products")
-@CrossOrigin(origins = "*") // adjust to frontend
+@CrossOrigin(origins = "*", exposedHeaders = ProductPaging.NEXT_CURSOR_HEADER) // adjust to frontend
 public class ProductsController
 {
+    private static final int MAX_SUGGESTIONS = 25;
+
     private final ProductDao productDao;
+    private final ProductImportService productImportService;
+    private final PriceStockUpdateService priceStockUpdateService;
+    private final CatalogVersionService catalogVersions;
+    private final InventoryService inventory;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public ProductsController(ProductDao productDao)
+    public ProductsController(ProductDao productDao,
+                              ProductImportService productImportService,
+                              PriceStockUpdateService priceStockUpdateService,
+                              CatalogVersionService catalogVersions,
+                              InventoryService inventory,
+                              ObjectMapper objectMapper)
     {
         this.productDao = productDao;
+        this.productImportService = productImportService;
+        this.priceStockUpdateService = priceStockUpdateService;
+        this.catalogVersions = catalogVersions;
+        this.inventory = inventory;
+        this.objectMapper = objectMapper;
     }
 
+    // GET /products?q=&cat=&minPrice=&maxPrice=&subCategory=&limit=&after=&fields=
+    // with q the products come ranked by relevance, limited to one page without a cursor
+    // GET /products?ids=1,2,3 returns those products in the order asked for, skipping unknown ids
     @GetMapping("")
     @PreAuthorize("permitAll()")
-    public List<Product> search(
+    public ResponseEntity<MappingJacksonValue> search(
+            @RequestParam(name="q", required = false) String query,
+            @RequestParam(name="ids", required = false) List<Integer> ids,
             @RequestParam(name="cat", required = false) Integer categoryId,
             @RequestParam(name="minPrice", required = false) BigDecimal minPrice,
             @RequestParam(name="maxPrice", required = false) BigDecimal maxPrice,
-            @RequestParam(name="subCategory", required = false) String subCategory
+            @RequestParam(name="subCategory", required = false) String subCategory,
+            @RequestParam(name="limit", required = false) Integer limit,
+            @RequestParam(name="after", required = false) String after,
+            @RequestParam(name="fields", required = false) String fields,
+            @RequestHeader(name="If-None-Match", required = false) String ifNoneMatch
     ) {
         try {
-            return productDao.search(categoryId, minPrice, maxPrice, subCategory);
+            String etag = catalogVersions.catalogEtag();
+            if (CatalogCaching.isNotModified(ifNoneMatch, etag))
+                return CatalogCaching.notModified(etag);
+
+            ProductProjection projection = ProductPaging.projection(fields);
+            if (ids != null)
+                return CatalogCaching.ok(etag).body(ProductPaging.body(getByIds(ids), projection));
+
+            if (query != null && !query.isBlank())
+            {
+                if (after != null)
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "after cannot be combined with q");
+                return CatalogCaching.ok(etag).body(ProductPaging.body(
+                        productDao.textSearch(query, categoryId, minPrice, maxPrice, subCategory, ProductPaging.limit(limit), projection),
+                        projection));
+            }
+
+            if (!ProductPaging.requested(limit, after))
+                return CatalogCaching.ok(etag).body(ProductPaging.body(
+                        productDao.search(categoryId, minPrice, maxPrice, subCategory, projection), projection));
+
+            ProductPage page = productDao.searchPage(categoryId, minPrice, maxPrice, subCategory,
+                    ProductPaging.after(after), ProductPaging.limit(limit), projection);
+            return ProductPaging.toResponse(CatalogCaching.ok(etag), page, projection);
+        } catch(ResponseStatusException ex) {
+            throw ex;
         } catch(Exception ex) {
             ex.printStackTrace();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to search products");
         }
     }
 
+    private List<Product> getByIds(List<Integer> ids)
+    {
+        List<Integer> unique = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (unique.size() > ProductPage.MAX_LIMIT)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + ProductPage.MAX_LIMIT + " ids per request");
+
+        IntObjectMap<Product> found = productDao.getByIds(unique);
+        List<Product> products = new ArrayList<>(found.size());
+        for (int id : unique)
+        {
+            Product product = found.get(id);
+            if (product != null) products.add(product);
+        }
+        return products;
+    }
+
+    // GET /products/facets?cat=&minPrice=&maxPrice=&subCategory=
+    @GetMapping("/facets")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<ProductFacets> facets(
+            @RequestParam(name="cat", required = false) Integer categoryId,
+            @RequestParam(name="minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(name="maxPrice", required = false) BigDecimal maxPrice,
+            @RequestParam(name="subCategory", required = false) String subCategory,
+            @RequestHeader(name="If-None-Match", required = false) String ifNoneMatch
+    ) {
+        try {
+            String etag = catalogVersions.catalogEtag();
+            if (CatalogCaching.isNotModified(ifNoneMatch, etag))
+                return CatalogCaching.notModified(etag);
+
+            return CatalogCaching.ok(etag).body(productDao.facetCounts(categoryId, minPrice, maxPrice, subCategory));
+        } catch(Exception ex) {
+            ex.printStackTrace();
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to count products");
+        }
+    }
+
+    // GET /products/suggest?q=mar&limit=10
+    @GetMapping("/suggest")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<MappingJacksonValue> suggest(
+            @RequestParam(name="q", defaultValue = "") String query,
+            @RequestParam(name="limit", defaultValue = "10") int limit,
+            @RequestHeader(name="If-None-Match", required = false) String ifNoneMatch
+    ) {
+        try {
+            String etag = catalogVersions.catalogEtag();
+            if (CatalogCaching.isNotModified(ifNoneMatch, etag))
+                return CatalogCaching.notModified(etag);
+
+            int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+            return CatalogCaching.ok(etag).body(ProductPaging.body(productDao.suggest(query, size), ProductProjection.SUMMARY));
+        } catch(Exception ex) {
+            ex.printStackTrace();
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to suggest products");
+        }
+    }
+
+    // GET /products/export?format=json|ndjson
+    // writes the catalog product by product, so memory use does not grow with the catalog
+    @GetMapping("/export")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(name="format", defaultValue = "json") String format)
+    {
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+        if(!ndjson && !"json".equalsIgnoreCase(format))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be json or ndjson");
+
+        ObjectWriter writer = objectMapper.writerFor(Product.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream))
+            {
+                if(ndjson) generator.setRootValueSeparator(new SerializedString("\n"));
+                else generator.writeStartArray();
+
+                productDao.streamAll(product -> {
+                    try {
+                        writer.writeValue(generator, product);
+                    } catch(IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+
+                if(ndjson) generator.writeRaw('\n');
+                else generator.writeEndArray();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @GetMapping("{id}")
     @PreAuthorize("permitAll()")
-    public Product getById(@PathVariable int id)
+    public ResponseEntity<Product> getById(@PathVariable int id,
+                                           @RequestHeader(name="If-None-Match", required = false) String ifNoneMatch)
     {
         try {
+            // answered from the version counters alone, the dao is not touched
+            String etag = catalogVersions.productEtag(id);
+            if(CatalogCaching.isNotModified(ifNoneMatch, etag))
+                return CatalogCaching.notModified(etag);
+
             Product product = productDao.getById(id);
             if(product == null)
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
-            return product;
+            return CatalogCaching.ok(etag).body(product);
+        } catch(ResponseStatusException ex) {
+            throw ex;
         } catch(Exception ex) {
             ex.printStackTrace();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to load product");
@@ -60,19 +240,73 @@ public class ProductsController
     public Product addProduct(@RequestBody Product product)
     {
         try {
-            return productDao.create(product);
+            Product created = productDao.create(product);
+            if(created != null)
+                catalogVersions.productChanged(created.getProductId());
+            return created;
         } catch(Exception ex) {
             ex.printStackTrace();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create product");
         }
     }
 
+    // POST /products/bulk with a JSON array of products
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public BulkImportResult bulkImport(HttpServletRequest request)
+    {
+        BulkImportResult result = new BulkImportResult();
+        try {
+            return productImportService.importProducts(request.getInputStream(), result);
+        } catch(IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch(Exception ex) {
+            ex.printStackTrace();
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to import products");
+        } finally {
+            // chunks commit one by one, so rows written before a failure have changed too
+            List<Integer> committed = result.getProductIds().stream().filter(Objects::nonNull).toList();
+            if(!committed.isEmpty())
+            {
+                catalogVersions.productsChanged(committed);
+                inventory.refresh(committed);
+            }
+        }
+    }
+
+    // PUT /products/bulk/price-stock with [{ productId, price?, stock? }, ...]
+    @PutMapping("/bulk/price-stock")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public BulkUpdateReport bulkUpdatePriceAndStock(@RequestBody List<PriceStockUpdate> updates)
+    {
+        try {
+            return priceStockUpdateService.apply(updates);
+        } catch(IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch(Exception ex) {
+            ex.printStackTrace();
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to update prices and stock");
+        } finally {
+            // chunks commit one by one, so a failure in a later chunk still leaves earlier ones changed;
+            // bumping every product that was attempted is at worst one needless revalidation
+            // the stock counters checkout reserves against are refreshed the same way, so a restock sells at once
+            if(updates != null)
+            {
+                List<Integer> attempted = updates.stream().filter(Objects::nonNull).map(PriceStockUpdate::getProductId).toList();
+                catalogVersions.productsChanged(attempted);
+                inventory.refresh(attempted);
+            }
+        }
+    }
+
     @PutMapping("{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     public void updateProduct(@PathVariable int id, @RequestBody Product product)
     {
         try {
             productDao.update(id, product);
+            catalogVersions.productChanged(id);
+            inventory.refresh(List.of(id));
         } catch(Exception ex) {
             ex.printStackTrace();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to update product");
@@ -88,6 +322,8 @@ public class ProductsController
             if(product == null)
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
             productDao.delete(id);
+            catalogVersions.productChanged(id);
+            inventory.refresh(List.of(id));
         } catch(Exception ex) {
             ex.printStackTrace();
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to delete product");
@@ -2,18 +2,24 @@ package com.plurasight.controllers;
 
 import com.plurasight.data.ProductDao;
 import com.plurasight.data.ShoppingCartDao;
-import com.plurasight.data.UserDao;
+import com.plurasight.models.CartItemChange;
+import com.plurasight.models.CompactCart;
 import com.plurasight.models.Product;
 import com.plurasight.models.ShoppingCart;
 import com.plurasight.models.ShoppingCartItem;
-import com.plurasight.models.User;
+import com.plurasight.services.UserIdCache;
+import com.plurasight.utils.IntObjectMap;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/cart")
@@ -21,42 +27,61 @@ import java.security.Principal;
 @PreAuthorize("isAuthenticated()")
 public class ShoppingCartController
 {
+    private static final int MAX_CHANGES = 200;
+
     private final ShoppingCartDao shoppingCartDao;
-    private final UserDao userDao;
+    private final UserIdCache userIds;
     private final ProductDao productDao;
 
     public ShoppingCartController(ShoppingCartDao shoppingCartDao,
-                                  UserDao userDao,
+                                  UserIdCache userIds,
                                   ProductDao productDao)
     {
         this.shoppingCartDao = shoppingCartDao;
-        this.userDao = userDao;
+        this.userIds = userIds;
         this.productDao = productDao;
     }
 
-    // GET /cart
+    // GET /cart?view=full|compact&products=true|false
+    // compact returns (productId, quantity, unitPrice, lineTotal) lines; products=true adds each product once, without description
     @GetMapping
-    public ShoppingCart getCart(Principal principal)
+    public MappingJacksonValue getCart(@RequestParam(name = "view", defaultValue = "full") String view,
+                                       @RequestParam(name = "products", defaultValue = "false") boolean includeProducts,
+                                       Principal principal)
     {
-        User user = userDao.getByUserName(principal.getName());
-        return shoppingCartDao.getByUserId(user.getId());
+        int userId = userId(principal);
+
+        if ("full".equalsIgnoreCase(view))
+            return new MappingJacksonValue(shoppingCartDao.getByUserId(userId));
+        if (!"compact".equalsIgnoreCase(view))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "view must be full or compact");
+
+        CompactCart cart = shoppingCartDao.getCompactByUserId(userId);
+        if (includeProducts)
+        {
+            List<Integer> productIds = cart.getItems().stream().map(CompactCart.Line::getProductId).toList();
+            IntObjectMap<Product> found = productDao.getByIds(productIds);
+
+            Map<Integer, Product> products = new LinkedHashMap<>();
+            found.forEach(products::put);
+            cart.setProducts(products);
+        }
+
+        MappingJacksonValue body = new MappingJacksonValue(cart);
+        body.setSerializationView(Product.Views.Summary.class);
+        return body;
     }
 
     // POST /cart/products/{productId}
     @PostMapping("/products/{productId}")
     public ResponseEntity<Void> addProduct(@PathVariable int productId, Principal principal)
     {
-        User user = userDao.getByUserName(principal.getName());
+        int userId = userId(principal);
 
-        Product product = productDao.getById(productId);
-        if (product == null)
+        // the existence check is part of the insert
+        if (!shoppingCartDao.add(userId, productId, 1))
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found");
 
-        if (shoppingCartDao.exists(user.getId(), productId))
-            shoppingCartDao.incrementQuantity(user.getId(), productId);
-        else
-            shoppingCartDao.add(user.getId(), productId, 1);
-
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
@@ -66,22 +91,43 @@ public class ShoppingCartController
                               @RequestBody ShoppingCartItem item,
                               Principal principal)
     {
-        User user = userDao.getByUserName(principal.getName());
+        int userId = userId(principal);
 
-        if (!shoppingCartDao.exists(user.getId(), productId))
+        if (!shoppingCartDao.exists(userId, productId))
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Item not in cart");
 
         if (item.getQuantity() <= 0)
-            shoppingCartDao.delete(user.getId(), productId);
+            shoppingCartDao.delete(userId, productId);
         else
-            shoppingCartDao.update(user.getId(), productId, item.getQuantity());
+            shoppingCartDao.update(userId, productId, item.getQuantity());
+    }
+
+    // PATCH /cart
+    // body: [{"productId": 1, "quantity": 2}, {"productId": 5, "quantity": 0}]
+    // sets every quantity in one go (0 removes) and returns the resulting cart
+    @PatchMapping
+    public ShoppingCart applyChanges(@RequestBody List<CartItemChange> changes, Principal principal)
+    {
+        if (changes == null || changes.size() > MAX_CHANGES || changes.contains(null))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Send between 0 and " + MAX_CHANGES + " changes");
+
+        int userId = userId(principal);
+        return shoppingCartDao.applyChanges(userId, changes);
     }
 
     // DELETE /cart
     @DeleteMapping
     public void clearCart(Principal principal)
     {
-        User user = userDao.getByUserName(principal.getName());
-        shoppingCartDao.clear(user.getId());
+        int userId = userId(principal);
+        shoppingCartDao.clear(userId);
+    }
+
+    private int userId(Principal principal)
+    {
+        int userId = userIds.getId(principal.getName());
+        if (userId < 0)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found");
+        return userId;
     }
 }
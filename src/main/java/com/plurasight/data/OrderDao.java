@@ -0,0 +1,18 @@
+package com.plurasight.data;
+
+import com.plurasight.models.Order;
+import com.plurasight.models.OrderPage;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+public interface OrderDao
+{
+    // in one transaction: takes the stock of every line, inserts the order with each line's current price
+    // and takes the ordered quantities out of the user's shopping cart; throws OutOfStockException (and writes nothing) if any line is short
+    Order create(Order order);
+    // the user's orders with their line items, newest first, keyset-paginated on (date, order_id); after is null for the first page
+    OrderPage getByUserId(int userId, OrderPage.Cursor after, int limit);
+    // hands every order placed in [from, to) to the consumer one at a time, oldest first, without collecting them into a list
+    void streamByDate(LocalDateTime from, LocalDateTime to, Consumer<Order> consumer);
+}
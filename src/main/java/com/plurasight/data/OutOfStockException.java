@@ -0,0 +1,23 @@
+package com.plurasight.data;
+
+import java.util.List;
+
+/**
+ * Thrown when an order asks for more of a product than is in stock, or for a product that no longer exists.
+ * Nothing of the order has been written when this is thrown.
+ */
+public class OutOfStockException extends RuntimeException
+{
+    private final List<Integer> productIds;
+
+    public OutOfStockException(List<Integer> productIds)
+    {
+        super("Not enough stock for products " + productIds);
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Integer> getProductIds()
+    {
+        return productIds;
+    }
+}
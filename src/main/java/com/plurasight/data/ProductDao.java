@@ -1,16 +1,49 @@
 package com.plurasight.data;
 
+import com.plurasight.models.PriceStockUpdate;
 import com.plurasight.models.Product;
+import com.plurasight.models.ProductFacets;
+import com.plurasight.models.ProductPage;
+import com.plurasight.utils.IntObjectMap;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public interface ProductDao
 {
-    List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory);
+    default List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        return search(categoryId, minPrice, maxPrice, subCategory, ProductProjection.FULL);
+    }
+    // with SUMMARY the description is not read and stays null
+    List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, ProductProjection projection);
+    // keyset pagination on product_id: returns up to limit products with an id greater than afterProductId
+    ProductPage searchPage(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                           Integer afterProductId, int limit, ProductProjection projection);
+    // counts per category, sub category and price bucket of everything the filters match
+    ProductFacets facetCounts(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory);
+    // free-text search over name and description, best match first, narrowed by the usual filters
+    List<Product> textSearch(String query, Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                             int limit, ProductProjection projection);
+    // products whose name (or a word of it onwards) or sub category starts with the prefix, case-insensitive
+    List<Product> suggest(String prefix, int limit);
     List<Product> listByCategoryId(int categoryId);
+    // hands every product to the consumer one at a time, without collecting them into a list
+    void streamAll(Consumer<Product> consumer);
     Product getById(int productId);
+    // unknown ids are simply missing from the map
+    IntObjectMap<Product> getByIds(Collection<Integer> productIds);
     Product create(Product product);
+    // inserts all products in one transaction and returns their new ids in the same order
+    List<Integer> createAll(List<Product> products);
+    // inserts the products one at a time, each on its own; returns their new ids in the same order, with null for
+    // a product that could not be inserted, whose index and error go to onError
+    List<Integer> createEach(List<Product> products, BiConsumer<Integer, RuntimeException> onError);
     void update(int productId, Product product);
+    // changes only price and/or stock, all rows in one transaction; returns the number of products updated
+    int updatePricesAndStock(Collection<PriceStockUpdate> updates);
     void delete(int productId);
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.plurasight.data;
+
+// which product columns a query reads; list views don't need the large description column
+public enum ProductProjection
+{
+    SUMMARY("product_id, name, price, category_id, subcategory, image_url, stock, featured"),
+    FULL("product_id, name, price, category_id, description, subcategory, image_url, stock, featured");
+
+    private final String columns;
+
+    ProductProjection(String columns)
+    {
+        this.columns = columns;
+    }
+
+    public String getColumns()
+    {
+        return columns;
+    }
+
+    public boolean includesDescription()
+    {
+        return this == FULL;
+    }
+
+    // parses the fields= request parameter, null means the full product
+    public static ProductProjection fromParameter(String fields)
+    {
+        if (fields == null || fields.isEmpty() || fields.equalsIgnoreCase("full")) return FULL;
+        if (fields.equalsIgnoreCase("summary")) return SUMMARY;
+        throw new IllegalArgumentException("fields must be summary or full");
+    }
+}
@@ -1,21 +1,34 @@
 package com.plurasight.data;
 
+import com.plurasight.models.CartItemChange;
+import com.plurasight.models.CompactCart;
 import com.plurasight.models.ShoppingCart;
 
+import java.util.List;
+import java.util.Map;
+
 public interface ShoppingCartDao
 {
     // GET: return full shopping cart for a user
     ShoppingCart getByUserId(int userId);
 
+    // Compact form of the cart: product id, quantity and price per line, no product details
+    CompactCart getCompactByUserId(int userId);
+
     // Check if a product is already in the cart
     boolean exists(int userId, int productId);
 
-    // Add a product to the cart (quantity can be 1 for new items)
-    void add(int userId, int productId, int quantity);
+    // Add a product to the cart, or add to its quantity if it is already there
+    // returns false when the product does not exist
+    boolean add(int userId, int productId, int quantity);
 
     // Increment quantity of an existing product in the cart
     void incrementQuantity(int userId, int productId);
 
+    // Add several products at once (product id -> quantity), adding to quantities already in the cart
+    // products that do not exist are skipped
+    void addAll(int userId, Map<Integer, Integer> quantities);
+
     // Update the quantity of a product in the cart
     void update(int userId, int productId, int quantity);
 
@@ -24,4 +37,12 @@ public interface ShoppingCartDao
 
     // Clear all items from a user's cart
     void clear(int userId);
+
+    // Called after an order transaction took these quantities (product id -> quantity) out of shopping_cart;
+    // keeps a cached copy of the cart in step. Quantities added since the cart was read stay in the cart.
+    void removeOrdered(int userId, Map<Integer, Integer> quantities);
+
+    // Set the quantities of several products at once (0 or less removes), in one transaction
+    // products that do not exist are skipped; returns the resulting cart
+    ShoppingCart applyChanges(int userId, List<CartItemChange> changes);
 }
\ No newline at end of file
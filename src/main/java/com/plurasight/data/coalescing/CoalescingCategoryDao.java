@@ -0,0 +1,81 @@
+package com.plurasight.data.coalescing;
+
+import com.plurasight.data.CategoryDao;
+import com.plurasight.models.Category;
+
+import java.util.List;
+
+/**
+ * CategoryDao decorator that lets concurrent identical reads share one database call.
+ * Results are shared between the callers and must not be modified.
+ */
+public class CoalescingCategoryDao implements CategoryDao
+{
+    private final CategoryDao delegate;
+    private final SingleFlight flights = new SingleFlight();
+
+    public CoalescingCategoryDao(CategoryDao delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    public SingleFlight.Stats stats()
+    {
+        return flights.stats();
+    }
+
+    @Override
+    public List<Category> getAllCategories()
+    {
+        return flights.execute(AllCategories.INSTANCE, delegate::getAllCategories);
+    }
+
+    @Override
+    public Category getById(int categoryId)
+    {
+        return flights.execute(new ById(categoryId), () -> delegate.getById(categoryId));
+    }
+
+    @Override
+    public Category create(Category category)
+    {
+        try
+        {
+            return delegate.create(category);
+        }
+        finally
+        {
+            flights.invalidate();
+        }
+    }
+
+    @Override
+    public Category update(int categoryId, Category category)
+    {
+        try
+        {
+            return delegate.update(categoryId, category);
+        }
+        finally
+        {
+            flights.invalidate();
+        }
+    }
+
+    @Override
+    public void delete(int categoryId)
+    {
+        try
+        {
+            delegate.delete(categoryId);
+        }
+        finally
+        {
+            flights.invalidate();
+        }
+    }
+
+    private enum AllCategories { INSTANCE }
+
+    private record ById(int categoryId) { }
+}
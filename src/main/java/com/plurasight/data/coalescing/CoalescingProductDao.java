@@ -0,0 +1,176 @@
+package com.plurasight.data.coalescing;
+
+import com.plurasight.data.ProductDao;
+import com.plurasight.data.ProductProjection;
+import com.plurasight.models.PriceStockUpdate;
+import com.plurasight.models.Product;
+import com.plurasight.models.ProductFacets;
+import com.plurasight.models.ProductPage;
+import com.plurasight.utils.IntObjectMap;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * ProductDao decorator that lets concurrent identical getById and search calls share one database call.
+ * Every write invalidates the calls in flight, so a read after a write never gets an older result.
+ * Results are shared between the callers and must not be modified.
+ */
+public class CoalescingProductDao implements ProductDao
+{
+    private final ProductDao delegate;
+    private final SingleFlight flights = new SingleFlight();
+
+    public CoalescingProductDao(ProductDao delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    public SingleFlight.Stats stats()
+    {
+        return flights.stats();
+    }
+
+    @Override
+    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, ProductProjection projection)
+    {
+        return flights.execute(new Search(categoryId, minPrice, maxPrice, subCategory, projection),
+                () -> delegate.search(categoryId, minPrice, maxPrice, subCategory, projection));
+    }
+
+    @Override
+    public Product getById(int productId)
+    {
+        return flights.execute(new ById(productId), () -> delegate.getById(productId));
+    }
+
+    @Override
+    public IntObjectMap<Product> getByIds(Collection<Integer> productIds)
+    {
+        return delegate.getByIds(productIds);
+    }
+
+    @Override
+    public ProductPage searchPage(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                                  Integer afterProductId, int limit, ProductProjection projection)
+    {
+        return delegate.searchPage(categoryId, minPrice, maxPrice, subCategory, afterProductId, limit, projection);
+    }
+
+    @Override
+    public ProductFacets facetCounts(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        return delegate.facetCounts(categoryId, minPrice, maxPrice, subCategory);
+    }
+
+    @Override
+    public List<Product> textSearch(String query, Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                                    int limit, ProductProjection projection)
+    {
+        return delegate.textSearch(query, categoryId, minPrice, maxPrice, subCategory, limit, projection);
+    }
+
+    @Override
+    public List<Product> suggest(String prefix, int limit)
+    {
+        return delegate.suggest(prefix, limit);
+    }
+
+    @Override
+    public List<Product> listByCategoryId(int categoryId)
+    {
+        return delegate.listByCategoryId(categoryId);
+    }
+
+    @Override
+    public void streamAll(Consumer<Product> consumer)
+    {
+        delegate.streamAll(consumer);
+    }
+
+    @Override
+    public Product create(Product product)
+    {
+        try
+        {
+            return delegate.create(product);
+        }
+        finally
+        {
+            flights.invalidate();
+        }
+    }
+
+    @Override
+    public List<Integer> createAll(List<Product> products)
+    {
+        try
+        {
+            return delegate.createAll(products);
+        }
+        finally
+        {
+            flights.invalidate();
+        }
+    }
+
+    @Override
+    public List<Integer> createEach(List<Product> products, BiConsumer<Integer, RuntimeException> onError)
+    {
+        try
+        {
+            return delegate.createEach(products, onError);
+        }
+        finally
+        {
+            flights.invalidate();
+        }
+    }
+
+    @Override
+    public void update(int productId, Product product)
+    {
+        try
+        {
+            delegate.update(productId, product);
+        }
+        finally
+        {
+            flights.invalidate();
+        }
+    }
+
+    @Override
+    public int updatePricesAndStock(Collection<PriceStockUpdate> updates)
+    {
+        try
+        {
+            return delegate.updatePricesAndStock(updates);
+        }
+        finally
+        {
+            flights.invalidate();
+        }
+    }
+
+    @Override
+    public void delete(int productId)
+    {
+        try
+        {
+            delegate.delete(productId);
+        }
+        finally
+        {
+            flights.invalidate();
+        }
+    }
+
+    private record ById(int productId) { }
+
+    private record Search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                          ProductProjection projection) { }
+}
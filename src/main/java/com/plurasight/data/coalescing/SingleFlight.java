@@ -0,0 +1,83 @@
+package com.plurasight.data.coalescing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent calls with the same key into one: the first caller runs the loader,
+ * everyone arriving while it runs waits for and shares its result (or exception).
+ * Nothing is kept once the call finishes, so this is not a cache.
+ * {@link #invalidate()} makes calls started afterwards run on their own, which keeps a read
+ * issued after a write from joining a read that started before it.
+ */
+public final class SingleFlight
+{
+    private final ConcurrentHashMap<Flight, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public <V> V execute(Object key, Supplier<V> loader)
+    {
+        calls.increment();
+
+        Flight flight = new Flight(epoch.get(), key);
+        CompletableFuture<Object> own = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flight, own);
+        if (running != null) return (V) join(running);
+
+        executions.increment();
+        try
+        {
+            V value = loader.get();
+            own.complete(value);
+            return value;
+        }
+        catch (RuntimeException | Error e)
+        {
+            own.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            inFlight.remove(flight, own);
+        }
+    }
+
+    public void invalidate()
+    {
+        epoch.incrementAndGet();
+    }
+
+    public Stats stats()
+    {
+        long total = calls.sum();
+        long executed = executions.sum();
+        return new Stats(total, executed, total - executed, inFlight.size());
+    }
+
+    private static Object join(CompletableFuture<Object> running)
+    {
+        try
+        {
+            return running.join();
+        }
+        catch (CompletionException e)
+        {
+            // rethrow what the loader threw, in the waiting thread
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    private record Flight(long epoch, Object key) { }
+
+    public record Stats(long calls, long executions, long collapsed, int inFlight) { }
+}
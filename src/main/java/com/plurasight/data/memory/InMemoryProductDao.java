@@ -0,0 +1,333 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.data.ProductDao;
+import com.plurasight.data.ProductProjection;
+import com.plurasight.models.PriceStockUpdate;
+import com.plurasight.models.Product;
+import com.plurasight.models.ProductFacets;
+import com.plurasight.models.ProductPage;
+import com.plurasight.utils.IntObjectMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * ProductDao decorator that keeps the whole catalog in memory.
+ * Reads are answered from an immutable snapshot; writes go to the delegate
+ * and then publish a new snapshot, so readers never see a half-applied change.
+ * Products handed out are shared with the snapshot and must not be modified.
+ */
+public class InMemoryProductDao implements ProductDao
+{
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryProductDao.class);
+
+    public static final long DEFAULT_SEARCH_CACHE_PRODUCTS = 100_000;
+    public static final long DEFAULT_SEARCH_CACHE_TTL_MILLIS = 5 * 60 * 1000;
+
+    private final ProductDao delegate;
+    private final Object writeLock = new Object();
+    private volatile ProductCatalogSnapshot snapshot;
+
+    private final ProductSuggestionIndex suggestions = new ProductSuggestionIndex();
+    private final ProductTextIndex text = new ProductTextIndex();
+    private final List<IncrementalProductIndex> indexes = List.of(suggestions, text);
+
+    // popular filter combinations are answered without walking the facet index again
+    private final SearchResultCache<SearchKey, List<Product>> searchCache;
+
+    public InMemoryProductDao(ProductDao delegate)
+    {
+        this(delegate, DEFAULT_SEARCH_CACHE_PRODUCTS, DEFAULT_SEARCH_CACHE_TTL_MILLIS);
+    }
+
+    public InMemoryProductDao(ProductDao delegate, long searchCacheMaxProducts, long searchCacheTtlMillis)
+    {
+        this.delegate = delegate;
+        this.searchCache = new SearchResultCache<>(searchCacheMaxProducts, searchCacheTtlMillis, List::size);
+    }
+
+    // loads the catalog up front; if the database is not reachable yet the first read will retry
+    public void warmUp()
+    {
+        try
+        {
+            snapshot();
+        }
+        catch (RuntimeException e)
+        {
+            LOG.warn("Could not preload the product catalog", e);
+        }
+    }
+
+    // the snapshot holds full products either way, so the projection only matters when serializing
+    @Override
+    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, ProductProjection projection)
+    {
+        SearchKey key = SearchKey.of(categoryId, minPrice, maxPrice, subCategory);
+        return searchCache.get(key, () -> snapshot().search(categoryId, minPrice, maxPrice, subCategory));
+    }
+
+    public SearchResultCache.Stats searchCacheStats()
+    {
+        return searchCache.stats();
+    }
+
+    @Override
+    public ProductPage searchPage(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                                  Integer afterProductId, int limit, ProductProjection projection)
+    {
+        return snapshot().searchPage(categoryId, minPrice, maxPrice, subCategory, afterProductId, limit);
+    }
+
+    @Override
+    public ProductFacets facetCounts(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        return snapshot().facetCounts(categoryId, minPrice, maxPrice, subCategory);
+    }
+
+    @Override
+    public List<Product> textSearch(String query, Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                                    int limit, ProductProjection projection)
+    {
+        // resolve the snapshot first, it fills the index on the very first read
+        ProductCatalogSnapshot current = snapshot();
+        return current.filter(text.search(query), categoryId, minPrice, maxPrice, subCategory, limit);
+    }
+
+    @Override
+    public List<Product> suggest(String prefix, int limit)
+    {
+        ProductCatalogSnapshot current = snapshot();
+        List<Product> products = new ArrayList<>(limit);
+        for (int productId : suggestions.suggest(prefix, limit))
+        {
+            Product product = current.getById(productId);
+            if (product != null) products.add(product);
+        }
+        return products;
+    }
+
+    @Override
+    public List<Product> listByCategoryId(int categoryId)
+    {
+        return search(categoryId, null, null, null, ProductProjection.FULL);
+    }
+
+    @Override
+    public void streamAll(Consumer<Product> consumer)
+    {
+        snapshot().forEach(consumer);
+    }
+
+    @Override
+    public Product getById(int productId)
+    {
+        return snapshot().getById(productId);
+    }
+
+    @Override
+    public IntObjectMap<Product> getByIds(Collection<Integer> productIds)
+    {
+        ProductCatalogSnapshot current = snapshot();
+        IntObjectMap<Product> products = new IntObjectMap<>(productIds.size());
+        for (int productId : productIds)
+        {
+            Product product = current.getById(productId);
+            if (product != null) products.put(productId, product);
+        }
+        return products;
+    }
+
+    @Override
+    public Product create(Product product)
+    {
+        synchronized (writeLock)
+        {
+            Product created = delegate.create(product);
+            if (created != null)
+                publish(snapshot().with(created), List.of(created.getProductId()));
+            return created;
+        }
+    }
+
+    @Override
+    public List<Integer> createAll(List<Product> products)
+    {
+        synchronized (writeLock)
+        {
+            List<Integer> ids = delegate.createAll(products);
+
+            // every column was supplied by the caller, so the rows can be cached without re-reading them
+            List<Product> created = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++)
+            {
+                created.add(copyWithId(ids.get(i), products.get(i)));
+            }
+
+            publish(snapshot().withAll(created), ids);
+            return ids;
+        }
+    }
+
+    // the rows that made it in are published together, one snapshot for the whole list
+    @Override
+    public List<Integer> createEach(List<Product> products, BiConsumer<Integer, RuntimeException> onError)
+    {
+        synchronized (writeLock)
+        {
+            List<Integer> ids = delegate.createEach(products, onError);
+
+            List<Product> created = new ArrayList<>();
+            List<Integer> createdIds = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++)
+            {
+                if (ids.get(i) == null) continue;
+                created.add(copyWithId(ids.get(i), products.get(i)));
+                createdIds.add(ids.get(i));
+            }
+
+            if (!created.isEmpty()) publish(snapshot().withAll(created), createdIds);
+            return ids;
+        }
+    }
+
+    @Override
+    public void update(int productId, Product product)
+    {
+        synchronized (writeLock)
+        {
+            delegate.update(productId, product);
+
+            // re-read so the snapshot holds exactly what the database stored
+            Product updated = delegate.getById(productId);
+            publish(updated != null ? snapshot().with(updated) : snapshot().without(productId), List.of(productId));
+        }
+    }
+
+    @Override
+    public int updatePricesAndStock(Collection<PriceStockUpdate> updates)
+    {
+        synchronized (writeLock)
+        {
+            int updated = delegate.updatePricesAndStock(updates);
+
+            ProductCatalogSnapshot current = snapshot();
+            Map<Integer, Product> changed = new HashMap<>();
+            for (PriceStockUpdate update : updates)
+            {
+                Product product = changed.getOrDefault(update.getProductId(), current.getById(update.getProductId()));
+                if (product == null) continue;
+
+                changed.put(product.getProductId(), new Product(product.getProductId(), product.getName(),
+                        update.getPrice() != null ? update.getPrice() : product.getPrice(),
+                        product.getCategoryId(), product.getDescription(), product.getSubCategory(),
+                        update.getStock() != null ? update.getStock() : product.getStock(),
+                        product.isFeatured(), product.getImageUrl()));
+            }
+
+            publish(current.withAll(changed.values()), changed.keySet());
+            return updated;
+        }
+    }
+
+    // an order took this stock (product id -> quantity) in the database; moves the snapshot along without re-reading
+    public void stockTaken(Map<Integer, Integer> quantities)
+    {
+        synchronized (writeLock)
+        {
+            ProductCatalogSnapshot current = snapshot();
+            List<Product> changed = new ArrayList<>(quantities.size());
+            quantities.forEach((productId, quantity) -> {
+                Product product = current.getById(productId);
+                if (product == null) return;
+
+                changed.add(new Product(product.getProductId(), product.getName(), product.getPrice(),
+                        product.getCategoryId(), product.getDescription(), product.getSubCategory(),
+                        Math.max(0, product.getStock() - quantity), product.isFeatured(), product.getImageUrl()));
+            });
+
+            publish(current.withAll(changed), quantities.keySet());
+        }
+    }
+
+    @Override
+    public void delete(int productId)
+    {
+        synchronized (writeLock)
+        {
+            delegate.delete(productId);
+            publish(snapshot().without(productId), List.of(productId));
+        }
+    }
+
+    private static Product copyWithId(int productId, Product product)
+    {
+        return new Product(productId, product.getName(), product.getPrice(), product.getCategoryId(),
+                product.getDescription(), product.getSubCategory(), product.getStock(),
+                product.isFeatured(), product.getImageUrl());
+    }
+
+    // swaps in the next snapshot and moves the incremental indexes along for the changed products
+    // must be called holding the write lock
+    private void publish(ProductCatalogSnapshot next, Collection<Integer> changedIds)
+    {
+        ProductCatalogSnapshot current = snapshot();
+        for (int productId : changedIds)
+        {
+            Product before = current.getById(productId);
+            Product after = next.getById(productId);
+            if (before == after) continue;
+
+            for (IncrementalProductIndex index : indexes)
+            {
+                if (before != null) index.remove(before);
+                if (after != null) index.add(after);
+            }
+        }
+        snapshot = next;
+        searchCache.clear();
+    }
+
+    private ProductCatalogSnapshot snapshot()
+    {
+        ProductCatalogSnapshot current = snapshot;
+        if (current != null) return current;
+
+        synchronized (writeLock)
+        {
+            if (snapshot == null)
+            {
+                ProductCatalogSnapshot loaded = ProductCatalogSnapshot.of(delegate.search(null, null, null, null));
+                for (IncrementalProductIndex index : indexes)
+                {
+                    index.clear();
+                    loaded.forEach(index::add);
+                }
+                snapshot = loaded;
+                searchCache.clear();
+            }
+            return snapshot;
+        }
+    }
+
+    // prices compare by value and sub categories case-insensitively, like the filters themselves
+    private record SearchKey(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        static SearchKey of(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+        {
+            return new SearchKey(categoryId,
+                    minPrice == null ? null : minPrice.stripTrailingZeros(),
+                    maxPrice == null ? null : maxPrice.stripTrailingZeros(),
+                    ProductFacetIndex.normalize(subCategory));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.models.Product;
+
+// an index that InMemoryProductDao keeps up to date product by product instead of rebuilding it per snapshot
+interface IncrementalProductIndex
+{
+    void add(Product product);
+
+    // called with the product exactly as it was added
+    void remove(Product product);
+
+    void clear();
+}
@@ -0,0 +1,208 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.models.Product;
+import com.plurasight.models.ProductFacets;
+import com.plurasight.models.ProductPage;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Immutable copy of the product catalog, ordered by product id.
+ * Writes never change a snapshot, they build a new one (copy-on-write).
+ */
+final class ProductCatalogSnapshot
+{
+    private static final int MAX_CACHED_FACETS = 1024;
+
+    private final Product[] products;
+    private final int[] ids;
+    private final ProductFacetIndex facets;
+
+    // facet counts only change with the catalog, so they are cached for the lifetime of the snapshot
+    private final Map<FacetKey, ProductFacets> facetCounts = new ConcurrentHashMap<>();
+
+    private ProductCatalogSnapshot(Product[] products)
+    {
+        this.products = products;
+        this.ids = new int[products.length];
+        for (int i = 0; i < products.length; i++)
+        {
+            ids[i] = products[i].getProductId();
+        }
+        this.facets = new ProductFacetIndex(products);
+    }
+
+    static ProductCatalogSnapshot of(Collection<Product> products)
+    {
+        Product[] sorted = products.toArray(new Product[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(Product::getProductId));
+        return new ProductCatalogSnapshot(sorted);
+    }
+
+    int size()
+    {
+        return products.length;
+    }
+
+    Product getById(int productId)
+    {
+        int index = Arrays.binarySearch(ids, productId);
+        return index >= 0 ? products[index] : null;
+    }
+
+    void forEach(Consumer<Product> consumer)
+    {
+        for (Product product : products)
+        {
+            consumer.accept(product);
+        }
+    }
+
+    List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        BitSet matches = facets.match(categoryId, minPrice, maxPrice, subCategory);
+        List<Product> results = new ArrayList<>(matches.cardinality());
+
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1))
+        {
+            results.add(products[i]);
+        }
+
+        return Collections.unmodifiableList(results);
+    }
+
+    // keeps the given ids in their order, dropping unknown products and those the filters exclude
+    List<Product> filter(List<Integer> productIds, Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, int limit)
+    {
+        boolean unfiltered = categoryId == null && minPrice == null && maxPrice == null
+                && ProductFacetIndex.normalize(subCategory) == null;
+        BitSet matches = unfiltered ? null : facets.match(categoryId, minPrice, maxPrice, subCategory);
+
+        List<Product> results = new ArrayList<>(Math.min(limit, productIds.size()));
+        for (int productId : productIds)
+        {
+            if (results.size() == limit) break;
+
+            int index = Arrays.binarySearch(ids, productId);
+            if (index < 0 || (matches != null && !matches.get(index))) continue;
+            results.add(products[index]);
+        }
+
+        return Collections.unmodifiableList(results);
+    }
+
+    ProductFacets facetCounts(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        FacetKey key = new FacetKey(categoryId, normalize(minPrice), normalize(maxPrice), ProductFacetIndex.normalize(subCategory));
+        ProductFacets cached = facetCounts.get(key);
+        if (cached != null) return cached;
+
+        BitSet matches = facets.match(categoryId, minPrice, maxPrice, subCategory);
+        ProductFacets counts = new ProductFacets();
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1))
+        {
+            Product product = products[i];
+            counts.add(product.getCategoryId(), ProductFacetIndex.normalize(product.getSubCategory()),
+                    ProductFacets.priceBucketOf(product.getPrice()), 1);
+        }
+
+        // arbitrary price filters could otherwise grow the cache without limit
+        if (facetCounts.size() < MAX_CACHED_FACETS)
+            facetCounts.put(key, counts);
+        return counts;
+    }
+
+    private static BigDecimal normalize(BigDecimal price)
+    {
+        return price == null ? null : price.stripTrailingZeros();
+    }
+
+    private record FacetKey(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory) { }
+
+    ProductPage searchPage(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, Integer afterProductId, int limit)
+    {
+        BitSet matches = facets.match(categoryId, minPrice, maxPrice, subCategory);
+
+        int start = 0;
+        if (afterProductId != null)
+        {
+            int index = Arrays.binarySearch(ids, afterProductId);
+            start = index >= 0 ? index + 1 : -index - 1;
+        }
+
+        List<Product> page = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        int i = matches.nextSetBit(start);
+        while (i >= 0 && page.size() < limit)
+        {
+            page.add(products[i]);
+            i = matches.nextSetBit(i + 1);
+        }
+
+        String nextCursor = i >= 0 && !page.isEmpty()
+                ? ProductPage.encodeCursor(page.get(page.size() - 1).getProductId())
+                : null;
+
+        return new ProductPage(Collections.unmodifiableList(page), nextCursor);
+    }
+
+    // returns a new snapshot with the product added, or replacing the one with the same id
+    ProductCatalogSnapshot with(Product product)
+    {
+        int index = Arrays.binarySearch(ids, product.getProductId());
+        Product[] copy;
+
+        if (index >= 0)
+        {
+            copy = products.clone();
+            copy[index] = product;
+        }
+        else
+        {
+            int insertAt = -index - 1;
+            copy = new Product[products.length + 1];
+            System.arraycopy(products, 0, copy, 0, insertAt);
+            copy[insertAt] = product;
+            System.arraycopy(products, insertAt, copy, insertAt + 1, products.length - insertAt);
+        }
+
+        return new ProductCatalogSnapshot(copy);
+    }
+
+    // bulk version of with(), rebuilds the snapshot once instead of once per product
+    ProductCatalogSnapshot withAll(Collection<Product> changed)
+    {
+        Map<Integer, Product> merged = new HashMap<>(products.length + changed.size());
+        for (Product product : products)
+        {
+            merged.put(product.getProductId(), product);
+        }
+        for (Product product : changed)
+        {
+            merged.put(product.getProductId(), product);
+        }
+        return of(merged.values());
+    }
+
+    ProductCatalogSnapshot without(int productId)
+    {
+        int index = Arrays.binarySearch(ids, productId);
+        if (index < 0) return this;
+
+        Product[] copy = new Product[products.length - 1];
+        System.arraycopy(products, 0, copy, 0, index);
+        System.arraycopy(products, index + 1, copy, index, products.length - index - 1);
+
+        return new ProductCatalogSnapshot(copy);
+    }
+}
@@ -0,0 +1,141 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.models.Product;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bitmap index over the search facets of a catalog snapshot.
+ * Bit {@code i} stands for the product at position {@code i} of the snapshot,
+ * so walking a result bitset in order yields products in product id order.
+ */
+final class ProductFacetIndex
+{
+    private static final BitSet EMPTY = new BitSet(0);
+
+    private final int size;
+    private final Map<Integer, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> bySubCategory = new HashMap<>();
+
+    // price column: positions sorted by price, with the matching prices alongside
+    private final int[] positionsByPrice;
+    private final BigDecimal[] sortedPrices;
+
+    ProductFacetIndex(Product[] products)
+    {
+        this.size = products.length;
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++)
+        {
+            Product product = products[i];
+            order[i] = i;
+
+            byCategory.computeIfAbsent(product.getCategoryId(), k -> new BitSet(size)).set(i);
+
+            String subCategory = normalize(product.getSubCategory());
+            if (subCategory != null)
+                bySubCategory.computeIfAbsent(subCategory, k -> new BitSet(size)).set(i);
+        }
+
+        Arrays.sort(order, Comparator.comparing(i -> products[i].getPrice()));
+        positionsByPrice = new int[size];
+        sortedPrices = new BigDecimal[size];
+        for (int i = 0; i < size; i++)
+        {
+            positionsByPrice[i] = order[i];
+            sortedPrices[i] = products[order[i]].getPrice();
+        }
+    }
+
+    /**
+     * Returns the positions of all products matching every given filter.
+     * Null filters (and an empty sub category) are ignored, like in MySqlProductDao.search.
+     * The returned bitset is always a fresh copy that the caller may modify.
+     */
+    BitSet match(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        BitSet result = null;
+
+        if (categoryId != null)
+            result = intersect(result, byCategory.getOrDefault(categoryId, EMPTY));
+
+        String normalized = normalize(subCategory);
+        if (normalized != null)
+            result = intersect(result, bySubCategory.getOrDefault(normalized, EMPTY));
+
+        if (minPrice != null || maxPrice != null)
+        {
+            BitSet range = priceRange(minPrice, maxPrice);
+            if (result == null) result = range;
+            else result.and(range);
+        }
+
+        if (result == null)
+        {
+            result = new BitSet(size);
+            result.set(0, size);
+        }
+
+        return result;
+    }
+
+    private BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice)
+    {
+        int from = minPrice == null ? 0 : firstAtLeast(minPrice);
+        int to = maxPrice == null ? size : firstAbove(maxPrice);
+
+        BitSet range = new BitSet(size);
+        for (int i = from; i < to; i++)
+        {
+            range.set(positionsByPrice[i]);
+        }
+        return range;
+    }
+
+    private int firstAtLeast(BigDecimal price)
+    {
+        int low = 0, high = size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid].compareTo(price) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int firstAbove(BigDecimal price)
+    {
+        int low = 0, high = size;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid].compareTo(price) <= 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // the first bitset is copied so the index itself is never modified
+    private static BitSet intersect(BitSet result, BitSet other)
+    {
+        if (result == null)
+            return (BitSet) other.clone();
+
+        result.and(other);
+        return result;
+    }
+
+    static String normalize(String subCategory)
+    {
+        if (subCategory == null || subCategory.isEmpty()) return null;
+        return subCategory.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,88 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.models.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Sorted set of lower-cased terms for search-as-you-type. A prefix lookup is a
+ * seek into the set followed by a short in-order scan. Terms are the product name,
+ * the name from each following word on ("super mario kart" also gives "mario kart"
+ * and "kart"), and the sub category.
+ */
+final class ProductSuggestionIndex implements IncrementalProductIndex
+{
+    private record Entry(String term, int productId) { }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::term).thenComparingInt(Entry::productId);
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+
+    @Override
+    public void add(Product product)
+    {
+        for (String term : terms(product))
+        {
+            entries.add(new Entry(term, product.getProductId()));
+        }
+    }
+
+    @Override
+    public void remove(Product product)
+    {
+        for (String term : terms(product))
+        {
+            entries.remove(new Entry(term, product.getProductId()));
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        entries.clear();
+    }
+
+    // ids of up to limit products with a term starting with the prefix, in term order
+    List<Integer> suggest(String prefix, int limit)
+    {
+        String normalized = prefix.trim().toLowerCase(Locale.ROOT);
+        Set<Integer> ids = new LinkedHashSet<>();
+        if (normalized.isEmpty()) return new ArrayList<>(ids);
+
+        for (Entry entry : entries.tailSet(new Entry(normalized, Integer.MIN_VALUE)))
+        {
+            if (!entry.term().startsWith(normalized) || ids.size() == limit) break;
+            ids.add(entry.productId());
+        }
+
+        return new ArrayList<>(ids);
+    }
+
+    private static Set<String> terms(Product product)
+    {
+        Set<String> terms = new LinkedHashSet<>();
+
+        String name = product.getName();
+        if (name != null)
+        {
+            name = name.trim().toLowerCase(Locale.ROOT);
+            for (int i = 0; i < name.length(); i++)
+            {
+                if ((i == 0 || Character.isWhitespace(name.charAt(i - 1))) && !Character.isWhitespace(name.charAt(i)))
+                    terms.add(name.substring(i));
+            }
+        }
+
+        String subCategory = ProductFacetIndex.normalize(product.getSubCategory());
+        if (subCategory != null)
+            terms.add(subCategory);
+
+        return terms;
+    }
+}
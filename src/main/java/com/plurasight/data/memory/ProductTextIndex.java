@@ -0,0 +1,201 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.models.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inverted index over product names and descriptions, ranked with BM25.
+ * Name terms count {@value #NAME_WEIGHT} times so a hit in the name outranks one in the description.
+ * A query word that is not in the vocabulary is matched against similar words through
+ * their character trigrams, which makes search tolerant to typos.
+ * Updated by a single writer (the catalog's write lock) and read concurrently.
+ */
+final class ProductTextIndex implements IncrementalProductIndex
+{
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 3;
+
+    private static final int GRAM_SIZE = 3;
+    private static final double MIN_SIMILARITY = 0.4;
+    private static final int MAX_EXPANSIONS = 3;
+
+    // term -> (product id -> weighted term frequency)
+    private final Map<String, Map<Integer, Integer>> postings = new ConcurrentHashMap<>();
+    // trigram -> terms containing it, for typo tolerance
+    private final Map<String, Set<String>> termsByGram = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> lengths = new ConcurrentHashMap<>();
+    private final AtomicLong totalLength = new AtomicLong();
+
+    @Override
+    public void add(Product product)
+    {
+        Map<String, Integer> frequencies = termFrequencies(product);
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lengths.put(product.getProductId(), length);
+        totalLength.addAndGet(length);
+
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet())
+        {
+            postings.computeIfAbsent(entry.getKey(), term -> {
+                for (String gram : grams(term))
+                {
+                    termsByGram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(term);
+                }
+                return new ConcurrentHashMap<>();
+            }).put(product.getProductId(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void remove(Product product)
+    {
+        Integer length = lengths.remove(product.getProductId());
+        if (length == null) return;
+        totalLength.addAndGet(-length);
+
+        for (String term : termFrequencies(product).keySet())
+        {
+            Map<Integer, Integer> posting = postings.get(term);
+            if (posting == null) continue;
+
+            posting.remove(product.getProductId());
+            if (posting.isEmpty())
+            {
+                postings.remove(term);
+                for (String gram : grams(term))
+                {
+                    Set<String> terms = termsByGram.get(gram);
+                    if (terms != null) terms.remove(term);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        postings.clear();
+        termsByGram.clear();
+        lengths.clear();
+        totalLength.set(0);
+    }
+
+    // ids of all products matching any query word, best match first
+    List<Integer> search(String query)
+    {
+        int documents = lengths.size();
+        if (documents == 0) return Collections.emptyList();
+        double averageLength = (double) totalLength.get() / documents;
+
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String token : new LinkedHashSet<>(tokenize(query)))
+        {
+            for (Map.Entry<String, Double> expansion : expand(token).entrySet())
+            {
+                Map<Integer, Integer> posting = postings.get(expansion.getKey());
+                if (posting == null) continue;
+
+                double idf = Math.log(1 + (documents - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<Integer, Integer> hit : posting.entrySet())
+                {
+                    int frequency = hit.getValue();
+                    double length = lengths.getOrDefault(hit.getKey(), 0);
+                    double score = expansion.getValue() * idf * frequency * (K1 + 1)
+                            / (frequency + K1 * (1 - B + B * length / averageLength));
+                    scores.merge(hit.getKey(), score, Double::sum);
+                }
+            }
+        }
+
+        List<Map.Entry<Integer, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        List<Integer> ids = new ArrayList<>(ranked.size());
+        for (Map.Entry<Integer, Double> entry : ranked)
+        {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    // the word itself when it is indexed, otherwise the most similar indexed words weighted by similarity
+    private Map<String, Double> expand(String token)
+    {
+        Map<String, Double> expansions = new LinkedHashMap<>();
+        if (postings.containsKey(token))
+        {
+            expansions.put(token, 1.0);
+            return expansions;
+        }
+
+        Set<String> tokenGrams = grams(token);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : tokenGrams)
+        {
+            for (String term : termsByGram.getOrDefault(gram, Collections.emptySet()))
+            {
+                shared.merge(term, 1, Integer::sum);
+            }
+        }
+
+        shared.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), 2.0 * entry.getValue() / (tokenGrams.size() + grams(entry.getKey()).size())))
+                .filter(entry -> entry.getValue() >= MIN_SIMILARITY)
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(MAX_EXPANSIONS)
+                .forEach(entry -> expansions.put(entry.getKey(), entry.getValue()));
+
+        return expansions;
+    }
+
+    private static Map<String, Integer> termFrequencies(Product product)
+    {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenize(product.getName()))
+        {
+            frequencies.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(product.getDescription()))
+        {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    static List<String> tokenize(String text)
+    {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+        {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    // padded so that the start and end of a word count as well
+    private static Set<String> grams(String term)
+    {
+        String padded = "$" + term + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= padded.length(); i++)
+        {
+            grams.add(padded.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+}
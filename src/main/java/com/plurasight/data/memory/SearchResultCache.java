@@ -0,0 +1,107 @@
+package com.plurasight.data.memory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded cache of search results with LRU and TTL eviction.
+ * The bound is a total weight (for product lists, the number of products held) rather than
+ * an entry count, so a few huge results cannot crowd out memory the way many small ones would.
+ * Values are loaded outside the lock; a value loaded across a {@link #clear()} is not stored.
+ */
+public final class SearchResultCache<K, V>
+{
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToIntFunction<V> weigher;
+    private final LongSupplier nanoClock;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public SearchResultCache(long maxWeight, long ttlMillis, ToIntFunction<V> weigher)
+    {
+        this(maxWeight, ttlMillis, weigher, System::nanoTime);
+    }
+
+    SearchResultCache(long maxWeight, long ttlMillis, ToIntFunction<V> weigher, LongSupplier nanoClock)
+    {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.weigher = weigher;
+        this.nanoClock = nanoClock;
+    }
+
+    public V get(K key, Supplier<V> loader)
+    {
+        long loadedGeneration;
+        synchronized (this)
+        {
+            Entry<V> entry = entries.get(key);
+            if (entry != null)
+            {
+                if (nanoClock.getAsLong() - entry.createdAt < ttlNanos)
+                {
+                    hits++;
+                    return entry.value;
+                }
+                entries.remove(key);
+                weight -= entry.weight;
+                expirations++;
+            }
+            misses++;
+            loadedGeneration = generation;
+        }
+
+        V value = loader.get();
+        put(key, value, loadedGeneration);
+        return value;
+    }
+
+    // drops everything; loads that are still running will not be stored
+    public synchronized void clear()
+    {
+        entries.clear();
+        weight = 0;
+        generation++;
+    }
+
+    public synchronized Stats stats()
+    {
+        return new Stats(hits, misses, evictions, expirations, entries.size(), weight, maxWeight);
+    }
+
+    private synchronized void put(K key, V value, long loadedGeneration)
+    {
+        int valueWeight = Math.max(1, weigher.applyAsInt(value));
+        if (loadedGeneration != generation || valueWeight > maxWeight) return;
+
+        Entry<V> previous = entries.put(key, new Entry<>(value, valueWeight, nanoClock.getAsLong()));
+        if (previous != null) weight -= previous.weight;
+        weight += valueWeight;
+
+        // least recently used first
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext())
+        {
+            Entry<V> evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= evicted.weight;
+            evictions++;
+        }
+    }
+
+    private record Entry<V>(V value, int weight, long createdAt) { }
+
+    public record Stats(long hits, long misses, long evictions, long expirations, int entries, long weight, long maxWeight) { }
+}
@@ -0,0 +1,353 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.data.ProductDao;
+import com.plurasight.data.ShoppingCartDao;
+import com.plurasight.data.mysql.MySqlShoppingCartDao;
+import com.plurasight.models.CartItemChange;
+import com.plurasight.models.CompactCart;
+import com.plurasight.models.Product;
+import com.plurasight.models.ShoppingCart;
+import com.plurasight.models.ShoppingCartItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * ShoppingCartDao that keeps active carts in memory and writes them to MySQL behind the caller.
+ * A cart is loaded from the database on first use; after that reads never touch the database.
+ * Changes are coalesced per cart row (only the last quantity is written) and flushed in one
+ * batched transaction every flush interval, and once more on shutdown. Carts idle for longer
+ * than the idle timeout are dropped from memory once they are flushed.
+ * Each cart is guarded by its own lock. Assumes this instance is the only writer of shopping_cart.
+ */
+public class WriteBehindShoppingCartDao implements ShoppingCartDao
+{
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindShoppingCartDao.class);
+    private static final int SHUTDOWN_FLUSH_ATTEMPTS = 3;
+
+    private final MySqlShoppingCartDao delegate;
+    private final ProductDao productDao;
+    private final long flushIntervalMillis;
+    private final long idleNanos;
+
+    private final Map<Integer, CartState> carts = new ConcurrentHashMap<>();
+    private final Set<Integer> dirtyUsers = ConcurrentHashMap.newKeySet();
+    private final Object flushLock = new Object();
+    private ScheduledExecutorService flusher;
+
+    public WriteBehindShoppingCartDao(MySqlShoppingCartDao delegate, ProductDao productDao,
+                                      long flushIntervalMillis, long idleMillis)
+    {
+        this.delegate = delegate;
+        this.productDao = productDao;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+    }
+
+    public void start()
+    {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAndEvict, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // stops the background flush and writes whatever is still pending
+    public void shutdown() throws InterruptedException
+    {
+        if (flusher != null)
+        {
+            flusher.shutdown();
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        for (int attempt = 1; attempt <= SHUTDOWN_FLUSH_ATTEMPTS && !dirtyUsers.isEmpty(); attempt++)
+        {
+            try
+            {
+                flush();
+            }
+            catch (RuntimeException e)
+            {
+                LOG.error("Flushing shopping carts on shutdown failed (attempt {})", attempt, e);
+            }
+        }
+        if (!dirtyUsers.isEmpty())
+            LOG.error("{} shopping carts could not be written on shutdown", dirtyUsers.size());
+    }
+
+    @Override
+    public ShoppingCart getByUserId(int userId)
+    {
+        Map<Integer, Integer> quantities = withCart(userId, cart -> new LinkedHashMap<>(cart.quantities));
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        quantities.forEach((productId, quantity) -> {
+            Product product = productDao.getById(productId);
+            if (product != null) shoppingCart.add(new ShoppingCartItem(product, quantity));
+        });
+        return shoppingCart;
+    }
+
+    @Override
+    public CompactCart getCompactByUserId(int userId)
+    {
+        Map<Integer, Integer> quantities = withCart(userId, cart -> new LinkedHashMap<>(cart.quantities));
+
+        CompactCart compactCart = new CompactCart();
+        quantities.forEach((productId, quantity) -> {
+            Product product = productDao.getById(productId);
+            if (product != null) compactCart.add(productId, quantity, product.getPriceCents());
+        });
+        return compactCart;
+    }
+
+    @Override
+    public boolean exists(int userId, int productId)
+    {
+        return withCart(userId, cart -> cart.quantities.containsKey(productId));
+    }
+
+    @Override
+    public boolean add(int userId, int productId, int quantity)
+    {
+        if (productDao.getById(productId) == null) return false;
+
+        return withCart(userId, cart -> {
+            cart.set(userId, productId, cart.quantities.getOrDefault(productId, 0) + quantity);
+            return true;
+        });
+    }
+
+    @Override
+    public void addAll(int userId, Map<Integer, Integer> quantities)
+    {
+        withCart(userId, cart -> {
+            quantities.forEach((productId, quantity) -> {
+                if (quantity > 0 && productDao.getById(productId) != null)
+                    cart.set(userId, productId, cart.quantities.getOrDefault(productId, 0) + quantity);
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public void incrementQuantity(int userId, int productId)
+    {
+        withCart(userId, cart -> {
+            Integer quantity = cart.quantities.get(productId);
+            if (quantity != null) cart.set(userId, productId, quantity + 1);
+            return null;
+        });
+    }
+
+    @Override
+    public void update(int userId, int productId, int quantity)
+    {
+        withCart(userId, cart -> {
+            if (cart.quantities.containsKey(productId)) cart.set(userId, productId, quantity);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(int userId, int productId)
+    {
+        withCart(userId, cart -> {
+            if (cart.quantities.containsKey(productId)) cart.set(userId, productId, 0);
+            return null;
+        });
+    }
+
+    @Override
+    public void clear(int userId)
+    {
+        withCart(userId, cart -> {
+            cart.quantities.clear();
+            cart.dirty.clear();
+            cart.cleared = true;
+            dirtyUsers.add(userId);
+            return null;
+        });
+    }
+
+    @Override
+    public void removeOrdered(int userId, Map<Integer, Integer> quantities)
+    {
+        // subtracts under the cart lock, so lines added or raised during the checkout are kept and written
+        withCart(userId, cart -> {
+            quantities.forEach((productId, ordered) -> {
+                Integer quantity = cart.quantities.get(productId);
+                if (quantity != null) cart.set(userId, productId, quantity - ordered);
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public ShoppingCart applyChanges(int userId, List<CartItemChange> changes)
+    {
+        withCart(userId, cart -> {
+            for (CartItemChange change : changes)
+            {
+                if (change.getQuantity() <= 0)
+                {
+                    if (cart.quantities.containsKey(change.getProductId())) cart.set(userId, change.getProductId(), 0);
+                }
+                else if (productDao.getById(change.getProductId()) != null)
+                {
+                    cart.set(userId, change.getProductId(), change.getQuantity());
+                }
+            }
+            return null;
+        });
+        return getByUserId(userId);
+    }
+
+    // writes every pending change in one transaction; on failure the changes are kept for the next flush
+    public void flush()
+    {
+        synchronized (flushLock)
+        {
+            List<Integer> taken = new ArrayList<>(dirtyUsers);
+            if (taken.isEmpty()) return;
+
+            Map<Integer, Pending> pending = new HashMap<>();
+            for (Integer userId : taken)
+            {
+                dirtyUsers.remove(userId);
+                CartState cart = carts.get(userId);
+                if (cart == null) continue;
+
+                synchronized (cart)
+                {
+                    if (!cart.cleared && cart.dirty.isEmpty()) continue;
+                    pending.put(userId, new Pending(cart.cleared, cart.dirty));
+                    cart.cleared = false;
+                    cart.dirty = new HashMap<>();
+                }
+            }
+
+            if (pending.isEmpty()) return;
+
+            List<Integer> cleared = new ArrayList<>();
+            List<MySqlShoppingCartDao.QuantityWrite> writes = new ArrayList<>();
+            pending.forEach((userId, changes) -> {
+                if (changes.cleared()) cleared.add(userId);
+                changes.quantities().forEach((productId, quantity) ->
+                        writes.add(new MySqlShoppingCartDao.QuantityWrite(userId, productId, quantity)));
+            });
+
+            try
+            {
+                delegate.saveAll(cleared, writes);
+            }
+            catch (RuntimeException e)
+            {
+                pending.forEach(this::restore);
+                throw e;
+            }
+        }
+    }
+
+    private void flushAndEvict()
+    {
+        try
+        {
+            flush();
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Flushing shopping carts failed, will retry", e);
+        }
+
+        long now = System.nanoTime();
+        carts.forEach((userId, cart) -> {
+            synchronized (cart)
+            {
+                if (now - cart.lastAccess > idleNanos && cart.dirty.isEmpty() && !cart.cleared)
+                {
+                    cart.evicted = true;
+                    carts.remove(userId, cart);
+                }
+            }
+        });
+    }
+
+    // puts changes that failed to flush back, unless the cart has changed the same rows since
+    private void restore(int userId, Pending changes)
+    {
+        CartState cart = carts.get(userId);
+        if (cart == null) return;
+
+        synchronized (cart)
+        {
+            // a clear since the failed flush makes the older changes irrelevant
+            if (!cart.cleared)
+            {
+                cart.cleared = changes.cleared();
+                changes.quantities().forEach(cart.dirty::putIfAbsent);
+            }
+            dirtyUsers.add(userId);
+        }
+    }
+
+    private <T> T withCart(int userId, Function<CartState, T> action)
+    {
+        while (true)
+        {
+            CartState cart = carts.computeIfAbsent(userId, id -> new CartState());
+            synchronized (cart)
+            {
+                // evicted between the lookup and the lock, take the fresh one
+                if (cart.evicted) continue;
+
+                if (!cart.loaded)
+                {
+                    delegate.getByUserId(userId).getItems().forEach((productId, item) ->
+                            cart.quantities.put(productId, item.getQuantity()));
+                    cart.loaded = true;
+                }
+
+                cart.lastAccess = System.nanoTime();
+                return action.apply(cart);
+            }
+        }
+    }
+
+    private record Pending(boolean cleared, Map<Integer, Integer> quantities) { }
+
+    // guarded by its own monitor
+    private final class CartState
+    {
+        private final Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        // product id -> quantity to write, 0 deletes the row
+        private Map<Integer, Integer> dirty = new HashMap<>();
+        private boolean cleared;
+        private boolean loaded;
+        private boolean evicted;
+        private long lastAccess;
+
+        private void set(int userId, int productId, int quantity)
+        {
+            if (quantity <= 0) quantities.remove(productId);
+            else quantities.put(productId, quantity);
+
+            dirty.put(productId, Math.max(quantity, 0));
+            dirtyUsers.add(userId);
+        }
+    }
+}
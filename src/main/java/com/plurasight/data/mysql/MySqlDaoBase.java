@@ -17,4 +17,38 @@ public abstract class MySqlDaoBase
     {
         return dataSource.getConnection();
     }
+
+    @FunctionalInterface
+    protected interface TransactionWork<T>
+    {
+        T execute(Connection connection) throws SQLException;
+    }
+
+    // runs the work in one transaction on one connection
+    // if auto-commit is already off the caller owns the transaction, so we neither commit nor roll back
+    protected <T> T inTransaction(TransactionWork<T> work) throws SQLException
+    {
+        try (Connection connection = getConnection())
+        {
+            if (!connection.getAutoCommit())
+                return work.execute(connection);
+
+            connection.setAutoCommit(false);
+            try
+            {
+                T result = work.execute(connection);
+                connection.commit();
+                return result;
+            }
+            catch (SQLException | RuntimeException e)
+            {
+                connection.rollback();
+                throw e;
+            }
+            finally
+            {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
 }
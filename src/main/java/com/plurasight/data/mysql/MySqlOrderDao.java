@@ -0,0 +1,337 @@
+package com.plurasight.data.mysql;
+
+import com.plurasight.data.OrderDao;
+import com.plurasight.data.OutOfStockException;
+import com.plurasight.models.Order;
+import com.plurasight.models.OrderLineItem;
+import com.plurasight.models.OrderPage;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@Component
+public class MySqlOrderDao extends MySqlDaoBase implements OrderDao
+{
+    private static final int IN_CHUNK_SIZE = 500;
+    private static final String ORDER_COLUMNS = "o.order_id, o.user_id, o.date, o.address, o.city, o.state, o.zip, o.shipping_amount";
+
+    public MySqlOrderDao(DataSource dataSource)
+    {
+        super(dataSource);
+    }
+
+    /*
+        The round trips do not grow with the cart (with rewriteBatchedStatements, one more per 500 lines):
+        one batch of guarded stock updates, one price read, the order insert, one batch of line items
+        and the two cart statements. Stock is taken first so a short line fails before anything is inserted,
+        and in product id order so concurrent checkouts lock the same rows in the same order and cannot deadlock.
+     */
+    @Override
+    public Order create(Order order)
+    {
+        List<OrderLineItem> lines = new ArrayList<>(order.getLineItems());
+        if (lines.isEmpty()) throw new IllegalArgumentException("An order needs at least one line item");
+        lines.sort(Comparator.comparingInt(OrderLineItem::getProductId));
+
+        try
+        {
+            return inTransaction(connection -> {
+                takeStock(connection, lines);
+
+                // the stock update holds the row locks, so these prices cannot change before the commit
+                Map<Integer, BigDecimal> prices = getPrices(connection, lines);
+                for (OrderLineItem line : lines)
+                {
+                    line.setSalesPrice(prices.get(line.getProductId()));
+                }
+
+                order.setOrderId(insertOrder(connection, order));
+                insertLineItems(connection, order.getOrderId(), lines);
+
+                MySqlShoppingCartDao.removeOrdered(connection, order.getUserId(), lines);
+
+                order.setLineItems(lines);
+                return order;
+            });
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error creating order", e);
+        }
+    }
+
+    @Override
+    public OrderPage getByUserId(int userId, OrderPage.Cursor after, int limit)
+    {
+        // both the filter and the order follow ix_orders_user_date, so a page is an index range scan however deep it is
+        StringBuilder sql = new StringBuilder("SELECT " + ORDER_COLUMNS + " FROM orders o WHERE o.user_id = ?");
+        if (after != null)
+            sql.append(" AND (o.date < ? OR (o.date = ? AND o.order_id < ?))");
+        // one extra row tells us whether there is a next page
+        sql.append(" ORDER BY o.date DESC, o.order_id DESC LIMIT ?");
+
+        try (Connection connection = getConnection())
+        {
+            List<Order> orders = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString()))
+            {
+                int index = 1;
+                statement.setInt(index++, userId);
+                if (after != null)
+                {
+                    statement.setTimestamp(index++, Timestamp.valueOf(after.date()));
+                    statement.setTimestamp(index++, Timestamp.valueOf(after.date()));
+                    statement.setInt(index++, after.orderId());
+                }
+                statement.setInt(index, limit + 1);
+
+                try (ResultSet row = statement.executeQuery())
+                {
+                    while (row.next())
+                    {
+                        orders.add(mapOrder(row));
+                    }
+                }
+            }
+
+            String nextCursor = null;
+            if (orders.size() > limit)
+            {
+                orders = new ArrayList<>(orders.subList(0, limit));
+                nextCursor = OrderPage.encodeCursor(orders.get(limit - 1));
+            }
+
+            loadLineItems(connection, orders);
+            return new OrderPage(orders, nextCursor);
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error loading orders", e);
+        }
+    }
+
+    /*
+        One query with the line items joined in, read as a streaming result set so that only the current
+        row is held in memory. Rows arrive grouped by order, and an order is handed on once the next one starts.
+        The connection stays busy until the consumer is done with the last order.
+     */
+    @Override
+    public void streamByDate(LocalDateTime from, LocalDateTime to, Consumer<Order> consumer)
+    {
+        String sql = "SELECT " + ORDER_COLUMNS + ", " +
+                "li.order_line_item_id, li.product_id, li.sales_price, li.quantity, li.discount " +
+                "FROM orders o LEFT JOIN order_line_items li ON li.order_id = o.order_id " +
+                "WHERE o.date >= ? AND o.date < ? " +
+                "ORDER BY o.date, o.order_id";
+
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+        {
+            // tells Connector/J to stream rows one by one instead of reading the whole result first
+            statement.setFetchSize(Integer.MIN_VALUE);
+            statement.setTimestamp(1, Timestamp.valueOf(from));
+            statement.setTimestamp(2, Timestamp.valueOf(to));
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                Order current = null;
+                while (row.next())
+                {
+                    int orderId = row.getInt("order_id");
+                    if (current == null || current.getOrderId() != orderId)
+                    {
+                        if (current != null) consumer.accept(current);
+                        current = mapOrder(row);
+                    }
+
+                    // an order without line items comes back as one row of nulls
+                    if (row.getObject("order_line_item_id") != null)
+                        current.getLineItems().add(mapLineItem(row));
+                }
+                if (current != null) consumer.accept(current);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error streaming orders", e);
+        }
+    }
+
+    // the line items of a whole page in one query
+    private static void loadLineItems(Connection connection, List<Order> orders) throws SQLException
+    {
+        if (orders.isEmpty()) return;
+
+        Map<Integer, Order> byId = new HashMap<>();
+        for (Order order : orders)
+        {
+            byId.put(order.getOrderId(), order);
+        }
+
+        String sql = "SELECT li.order_line_item_id, li.order_id, li.product_id, li.sales_price, li.quantity, li.discount " +
+                "FROM order_line_items li WHERE li.order_id IN (" + String.join(", ", Collections.nCopies(orders.size(), "?")) + ") " +
+                "ORDER BY li.order_id, li.order_line_item_id";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            for (int i = 0; i < orders.size(); i++)
+            {
+                statement.setInt(i + 1, orders.get(i).getOrderId());
+            }
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                while (row.next())
+                {
+                    byId.get(row.getInt("order_id")).getLineItems().add(mapLineItem(row));
+                }
+            }
+        }
+    }
+
+    private static Order mapOrder(ResultSet row) throws SQLException
+    {
+        return new Order(
+                row.getInt("order_id"),
+                row.getInt("user_id"),
+                row.getTimestamp("date").toLocalDateTime(),
+                row.getString("address"),
+                row.getString("city"),
+                row.getString("state"),
+                row.getString("zip"),
+                row.getBigDecimal("shipping_amount"));
+    }
+
+    private static OrderLineItem mapLineItem(ResultSet row) throws SQLException
+    {
+        return new OrderLineItem(
+                row.getInt("order_line_item_id"),
+                row.getInt("order_id"),
+                row.getInt("product_id"),
+                row.getBigDecimal("sales_price"),
+                row.getInt("quantity"),
+                row.getBigDecimal("discount"));
+    }
+
+    // an update only matches while enough stock is left, so stock can never go below zero
+    private static void takeStock(Connection connection, List<OrderLineItem> lines) throws SQLException
+    {
+        String sql = "UPDATE products SET stock = stock - ? WHERE product_id = ? AND stock >= ?";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            for (OrderLineItem line : lines)
+            {
+                statement.setInt(1, line.getQuantity());
+                statement.setInt(2, line.getProductId());
+                statement.setInt(3, line.getQuantity());
+                statement.addBatch();
+            }
+
+            int[] updated = statement.executeBatch();
+
+            List<Integer> shortProductIds = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++)
+            {
+                if (updated[i] == 0) shortProductIds.add(lines.get(i).getProductId());
+            }
+            // rolls the transaction back, including the updates that did match
+            if (!shortProductIds.isEmpty()) throw new OutOfStockException(shortProductIds);
+        }
+    }
+
+    private static Map<Integer, BigDecimal> getPrices(Connection connection, List<OrderLineItem> lines) throws SQLException
+    {
+        Map<Integer, BigDecimal> prices = new HashMap<>();
+
+        for (int from = 0; from < lines.size(); from += IN_CHUNK_SIZE)
+        {
+            List<OrderLineItem> chunk = lines.subList(from, Math.min(from + IN_CHUNK_SIZE, lines.size()));
+            String sql = "SELECT product_id, price FROM products WHERE product_id IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            try (PreparedStatement statement = connection.prepareStatement(sql))
+            {
+                for (int i = 0; i < chunk.size(); i++)
+                {
+                    statement.setInt(i + 1, chunk.get(i).getProductId());
+                }
+
+                try (ResultSet row = statement.executeQuery())
+                {
+                    while (row.next())
+                    {
+                        prices.put(row.getInt("product_id"), row.getBigDecimal("price"));
+                    }
+                }
+            }
+        }
+
+        return prices;
+    }
+
+    private static int insertOrder(Connection connection, Order order) throws SQLException
+    {
+        String sql = "INSERT INTO orders (user_id, date, address, city, state, zip, shipping_amount) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))
+        {
+            statement.setInt(1, order.getUserId());
+            statement.setTimestamp(2, Timestamp.valueOf(order.getDate()));
+            statement.setString(3, order.getAddress());
+            statement.setString(4, order.getCity());
+            statement.setString(5, order.getState());
+            statement.setString(6, order.getZip());
+            statement.setBigDecimal(7, order.getShippingAmount());
+            statement.executeUpdate();
+
+            try (ResultSet generatedKeys = statement.getGeneratedKeys())
+            {
+                if (!generatedKeys.next()) throw new SQLException("No order id was generated");
+                return generatedKeys.getInt(1);
+            }
+        }
+    }
+
+    private static void insertLineItems(Connection connection, int orderId, List<OrderLineItem> lines) throws SQLException
+    {
+        String sql = "INSERT INTO order_line_items (order_id, product_id, sales_price, quantity, discount) VALUES (?, ?, ?, ?, ?)";
+
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))
+        {
+            for (OrderLineItem line : lines)
+            {
+                line.setOrderId(orderId);
+                statement.setInt(1, orderId);
+                statement.setInt(2, line.getProductId());
+                statement.setBigDecimal(3, line.getSalesPrice());
+                statement.setInt(4, line.getQuantity());
+                statement.setBigDecimal(5, line.getDiscount());
+                statement.addBatch();
+            }
+
+            // with rewriteBatchedStatements this is a single multi-row INSERT
+            statement.executeBatch();
+
+            try (ResultSet generatedKeys = statement.getGeneratedKeys())
+            {
+                for (OrderLineItem line : lines)
+                {
+                    if (!generatedKeys.next()) break;
+                    line.setOrderLineItemId(generatedKeys.getInt(1));
+                }
+            }
+        }
+    }
+}
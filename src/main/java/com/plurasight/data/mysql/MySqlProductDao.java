@@ -1,30 +1,125 @@
 package com.plurasight.data.mysql;
 
 import com.plurasight.data.ProductDao;
+import com.plurasight.data.ProductProjection;
+import com.plurasight.models.PriceStockUpdate;
 import com.plurasight.models.Product;
+import com.plurasight.models.ProductFacets;
+import com.plurasight.models.ProductPage;
+import com.plurasight.utils.IntObjectMap;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Component
 public class MySqlProductDao extends MySqlDaoBase implements ProductDao
 {
+    private static final int IN_CHUNK_SIZE = 500;
+    private static final String INSERT_SQL = "INSERT INTO products(name, price, category_id, description, subcategory, image_url, stock, featured) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
     public MySqlProductDao(DataSource dataSource)
     {
         super(dataSource);
     }
 
     @Override
-    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, ProductProjection projection)
     {
-        List<Product> products = new ArrayList<>();
-        StringBuilder sql = new StringBuilder("SELECT * FROM products WHERE 1=1");
+        StringBuilder sql = new StringBuilder("SELECT " + projection.getColumns() + " FROM products WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, categoryId, minPrice, maxPrice, subCategory);
+
+        // explicit order so the in-memory catalog can return results in the same order
+        sql.append(" ORDER BY product_id");
+
+        return query(sql.toString(), params, projection);
+    }
+
+    @Override
+    public ProductPage searchPage(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                                  Integer afterProductId, int limit, ProductProjection projection)
+    {
+        StringBuilder sql = new StringBuilder("SELECT " + projection.getColumns() + " FROM products WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, categoryId, minPrice, maxPrice, subCategory);
+
+        if(afterProductId != null) {
+            sql.append(" AND product_id > ?");
+            params.add(afterProductId);
+        }
+
+        // one extra row tells us whether there is a next page
+        sql.append(" ORDER BY product_id LIMIT ?");
+        params.add(limit + 1);
+
+        List<Product> products = query(sql.toString(), params, projection);
+        if (products.size() <= limit)
+            return new ProductPage(products, null);
+
+        products = products.subList(0, limit);
+        return new ProductPage(products, ProductPage.encodeCursor(products.get(limit - 1).getProductId()));
+    }
+
+    @Override
+    public ProductFacets facetCounts(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        // one grouped query returns every (category, sub category, price bucket) combination with its count
+        StringBuilder sql = new StringBuilder("SELECT category_id, subcategory_normalized AS sub_category, ")
+                .append(priceBucketCase()).append(" AS price_bucket, COUNT(*) AS products FROM products WHERE 1=1");
         List<Object> params = new ArrayList<>();
+        appendFilters(sql, params, categoryId, minPrice, maxPrice, subCategory);
+        sql.append(" GROUP BY category_id, sub_category, price_bucket");
+
+        ProductFacets facets = new ProductFacets();
 
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString()))
+        {
+            for(int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                while (row.next()) {
+                    facets.add(row.getInt("category_id"), row.getString("sub_category"),
+                            row.getInt("price_bucket"), row.getInt("products"));
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            e.printStackTrace();
+            throw new RuntimeException(e);
+        }
+
+        return facets;
+    }
+
+    private static String priceBucketCase()
+    {
+        StringBuilder sql = new StringBuilder("CASE");
+        for (int i = ProductFacets.PRICE_BUCKET_BOUNDS.length - 1; i > 0; i--)
+        {
+            sql.append(" WHEN price >= ").append(ProductFacets.PRICE_BUCKET_BOUNDS[i].toPlainString())
+                    .append(" THEN ").append(i);
+        }
+        return sql.append(" ELSE 0 END").toString();
+    }
+
+    private static void appendFilters(StringBuilder sql, List<Object> params, Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
         if(categoryId != null) {
             sql.append(" AND category_id = ?");
             params.add(categoryId);
@@ -41,20 +136,26 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         }
 
         if(subCategory != null && !subCategory.isEmpty()) {
-            sql.append(" AND LOWER(subcategory) = LOWER(?)"); // case-insensitive
-            params.add(subCategory);
+            // compares against the stored lower-case column so (category_id, subcategory_normalized) can be used
+            sql.append(" AND subcategory_normalized = ?");
+            params.add(subCategory.toLowerCase(Locale.ROOT));
         }
+    }
+
+    private List<Product> query(String sql, List<Object> params, ProductProjection projection)
+    {
+        List<Product> products = new ArrayList<>();
 
         try (Connection connection = getConnection())
         {
-            PreparedStatement statement = connection.prepareStatement(sql.toString());
+            PreparedStatement statement = connection.prepareStatement(sql);
             for(int i = 0; i < params.size(); i++) {
                 statement.setObject(i + 1, params.get(i));
             }
 
             ResultSet row = statement.executeQuery();
             while (row.next()) {
-                products.add(mapRow(row));
+                products.add(mapRow(row, projection));
             }
         }
         catch (SQLException e)
@@ -66,11 +167,52 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         return products;
     }
 
+    @Override
+    public List<Product> textSearch(String query, Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                                    int limit, ProductProjection projection)
+    {
+        // unranked fallback: every word has to appear in the name or the description
+        StringBuilder sql = new StringBuilder("SELECT ").append(projection.getColumns()).append(" FROM products WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        for (String word : query.trim().split("\\s+"))
+        {
+            if (word.isEmpty()) continue;
+            String pattern = "%" + escapeLike(word) + "%";
+            sql.append(" AND (name LIKE ? OR description LIKE ?)");
+            params.add(pattern);
+            params.add(pattern);
+        }
+        appendFilters(sql, params, categoryId, minPrice, maxPrice, subCategory);
+        sql.append(" ORDER BY product_id LIMIT ?");
+        params.add(limit);
+
+        return query(sql.toString(), params, projection);
+    }
+
+    @Override
+    public List<Product> suggest(String prefix, int limit)
+    {
+        String trimmed = prefix.trim();
+        if (trimmed.isEmpty()) return new ArrayList<>();
+
+        // only matches from the start of the name; the in-memory catalog also matches later words
+        String sql = "SELECT " + ProductProjection.SUMMARY.getColumns() + " FROM products " +
+                "WHERE name LIKE ? OR subcategory LIKE ? ORDER BY name, product_id LIMIT ?";
+        String pattern = escapeLike(trimmed) + "%";
+
+        return query(sql, List.of(pattern, pattern, limit), ProductProjection.SUMMARY);
+    }
+
+    private static String escapeLike(String value)
+    {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     @Override
     public List<Product> listByCategoryId(int categoryId)
     {
         List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products WHERE category_id = ?";
+        String sql = "SELECT " + ProductProjection.FULL.getColumns() + " FROM products WHERE category_id = ? ORDER BY product_id";
 
         try (Connection connection = getConnection())
         {
@@ -91,10 +233,35 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         return products;
     }
 
+    @Override
+    public void streamAll(Consumer<Product> consumer)
+    {
+        String sql = "SELECT " + ProductProjection.FULL.getColumns() + " FROM products ORDER BY product_id";
+
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+        {
+            // Connector/J streams the result row by row instead of buffering it all on the heap
+            statement.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet row = statement.executeQuery())
+            {
+                while (row.next()) {
+                    consumer.accept(mapRow(row));
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            e.printStackTrace();
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public Product getById(int productId)
     {
-        String sql = "SELECT * FROM products WHERE product_id = ?";
+        String sql = "SELECT " + ProductProjection.FULL.getColumns() + " FROM products WHERE product_id = ?";
         try (Connection connection = getConnection())
         {
             PreparedStatement statement = connection.prepareStatement(sql);
@@ -113,22 +280,92 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         return null;
     }
 
+    @Override
+    public IntObjectMap<Product> getByIds(Collection<Integer> productIds)
+    {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        IntObjectMap<Product> products = new IntObjectMap<>(ids.size());
+        if (ids.isEmpty()) return products;
+
+        try (Connection connection = getConnection())
+        {
+            // one query per chunk keeps the statement size and the IN list bounded
+            for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE)
+            {
+                List<Integer> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+                String sql = "SELECT " + ProductProjection.FULL.getColumns() + " FROM products WHERE product_id IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                try (PreparedStatement statement = connection.prepareStatement(sql))
+                {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setInt(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet row = statement.executeQuery())
+                    {
+                        while (row.next()) {
+                            Product product = mapRow(row);
+                            products.put(product.getProductId(), product);
+                        }
+                    }
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            e.printStackTrace();
+            throw new RuntimeException(e);
+        }
+
+        return products;
+    }
+
+    // current stock column only, for the inventory service; unknown ids are missing from the map
+    public IntObjectMap<Integer> getStock(Collection<Integer> productIds)
+    {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        IntObjectMap<Integer> stock = new IntObjectMap<>(ids.size());
+        if (ids.isEmpty()) return stock;
+
+        try (Connection connection = getConnection())
+        {
+            for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE)
+            {
+                List<Integer> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+                String sql = "SELECT product_id, stock FROM products WHERE product_id IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+
+                try (PreparedStatement statement = connection.prepareStatement(sql))
+                {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        statement.setInt(i + 1, chunk.get(i));
+                    }
+
+                    try (ResultSet row = statement.executeQuery())
+                    {
+                        while (row.next()) {
+                            stock.put(row.getInt("product_id"), row.getInt("stock"));
+                        }
+                    }
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error loading stock", e);
+        }
+
+        return stock;
+    }
+
     @Override
     public Product create(Product product)
     {
-        String sql = "INSERT INTO products(name, price, category_id, description, subcategory, image_url, stock, featured) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         try (Connection connection = getConnection())
         {
-            PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            statement.setString(1, product.getName());
-            statement.setBigDecimal(2, product.getPrice());
-            statement.setInt(3, product.getCategoryId());
-            statement.setString(4, product.getDescription());
-            statement.setString(5, product.getSubCategory());
-            statement.setString(6, product.getImageUrl());
-            statement.setInt(7, product.getStock());
-            statement.setBoolean(8, product.isFeatured());
+            PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            setInsertParameters(statement, product);
 
             int rowsAffected = statement.executeUpdate();
             if (rowsAffected > 0) {
@@ -146,6 +383,90 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         return null;
     }
 
+    @Override
+    public List<Integer> createAll(List<Product> products)
+    {
+        if (products.isEmpty()) return new ArrayList<>();
+
+        try
+        {
+            return inTransaction(connection -> {
+                List<Integer> ids = new ArrayList<>(products.size());
+
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS))
+                {
+                    for (Product product : products) {
+                        setInsertParameters(statement, product);
+                        statement.addBatch();
+                    }
+
+                    // with rewriteBatchedStatements this is a single multi-row INSERT
+                    statement.executeBatch();
+
+                    try (ResultSet generatedKeys = statement.getGeneratedKeys())
+                    {
+                        while (generatedKeys.next()) {
+                            ids.add(generatedKeys.getInt(1));
+                        }
+                    }
+                }
+
+                return ids;
+            });
+        }
+        catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<Integer> createEach(List<Product> products, BiConsumer<Integer, RuntimeException> onError)
+    {
+        List<Integer> ids = new ArrayList<>(products.size());
+
+        // one connection for all rows; with auto-commit every insert stands on its own
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS))
+        {
+            for (int i = 0; i < products.size(); i++)
+            {
+                try
+                {
+                    setInsertParameters(statement, products.get(i));
+                    statement.executeUpdate();
+
+                    try (ResultSet generatedKeys = statement.getGeneratedKeys())
+                    {
+                        ids.add(generatedKeys.next() ? generatedKeys.getInt(1) : null);
+                    }
+                }
+                catch (SQLException e)
+                {
+                    ids.add(null);
+                    onError.accept(i, new RuntimeException(e));
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        return ids;
+    }
+
+    private static void setInsertParameters(PreparedStatement statement, Product product) throws SQLException
+    {
+        statement.setString(1, product.getName());
+        statement.setBigDecimal(2, product.getPrice());
+        statement.setInt(3, product.getCategoryId());
+        statement.setString(4, product.getDescription());
+        statement.setString(5, product.getSubCategory());
+        statement.setString(6, product.getImageUrl());
+        statement.setInt(7, product.getStock());
+        statement.setBoolean(8, product.isFeatured());
+    }
+
     @Override
     public void update(int productId, Product product)
     {
@@ -170,6 +491,39 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         }
     }
 
+    @Override
+    public int updatePricesAndStock(Collection<PriceStockUpdate> updates)
+    {
+        if (updates.isEmpty()) return 0;
+
+        // COALESCE keeps the current value when the update leaves a column out
+        String sql = "UPDATE products SET price = COALESCE(?, price), stock = COALESCE(?, stock) WHERE product_id = ?";
+
+        try
+        {
+            return inTransaction(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql))
+                {
+                    for (PriceStockUpdate update : updates) {
+                        statement.setBigDecimal(1, update.getPrice());
+                        statement.setObject(2, update.getStock(), Types.INTEGER);
+                        statement.setInt(3, update.getProductId());
+                        statement.addBatch();
+                    }
+
+                    int updated = 0;
+                    for (int count : statement.executeBatch()) {
+                        if (count > 0 || count == Statement.SUCCESS_NO_INFO) updated++;
+                    }
+                    return updated;
+                }
+            });
+        }
+        catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public void delete(int productId)
     {
@@ -187,13 +541,18 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
     }
 
     protected static Product mapRow(ResultSet row) throws SQLException
+    {
+        return mapRow(row, ProductProjection.FULL);
+    }
+
+    protected static Product mapRow(ResultSet row, ProductProjection projection) throws SQLException
     {
         return new Product(
                 row.getInt("product_id"),
                 row.getString("name"),
                 row.getBigDecimal("price"),
                 row.getInt("category_id"),
-                row.getString("description"),
+                projection.includesDescription() ? row.getString("description") : null,
                 row.getString("subcategory"),
                 row.getInt("stock"),
                 row.getBoolean("featured"),
@@ -1,6 +1,9 @@
 package com.plurasight.data.mysql;
 
 import com.plurasight.data.ShoppingCartDao;
+import com.plurasight.models.CartItemChange;
+import com.plurasight.models.CompactCart;
+import com.plurasight.models.OrderLineItem;
 import com.plurasight.models.Product;
 import com.plurasight.models.ShoppingCart;
 import com.plurasight.models.ShoppingCartItem;
@@ -8,6 +11,11 @@ import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDao
@@ -68,6 +76,42 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
         return cart;
     }
 
+    @Override
+    public CompactCart getCompactByUserId(int userId)
+    {
+        // only the three columns the compact cart needs, no product row
+        String sql = """
+            SELECT sc.product_id, sc.quantity, p.price
+            FROM shopping_cart sc
+            JOIN products p ON p.product_id = sc.product_id
+            WHERE sc.user_id = ?
+            ORDER BY sc.product_id
+        """;
+
+        CompactCart cart = new CompactCart();
+
+        try (Connection connection = getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql))
+        {
+            statement.setInt(1, userId);
+
+            try (ResultSet results = statement.executeQuery())
+            {
+                while (results.next())
+                {
+                    long priceCents = results.getBigDecimal("price").movePointRight(2).longValueExact();
+                    cart.add(results.getInt("product_id"), results.getInt("quantity"), priceCents);
+                }
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error loading shopping cart", e);
+        }
+
+        return cart;
+    }
+
     @Override
     public boolean exists(int userId, int productId)
     {
@@ -91,22 +135,26 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
     }
 
     @Override
-    public void add(int userId, int productId, int quantity)
+    public boolean add(int userId, int productId, int quantity)
     {
-        if (exists(userId, productId)) {
-            incrementQuantityBy(userId, productId, quantity);
-            return;
-        }
-
-        String sql = "INSERT INTO shopping_cart (user_id, product_id, quantity) VALUES (?, ?, ?)";
+        // one statement: the SELECT yields no row for an unknown product, and an existing cart row is incremented
+        // instead of failing on the primary key, so concurrent adds cannot race
+        String sql = """
+            INSERT INTO shopping_cart (user_id, product_id, quantity)
+            SELECT ?, product_id, ? FROM products WHERE product_id = ?
+            ON DUPLICATE KEY UPDATE shopping_cart.quantity = shopping_cart.quantity + ?
+        """;
 
         try (Connection connection = getConnection();
              PreparedStatement statement = connection.prepareStatement(sql))
         {
             statement.setInt(1, userId);
-            statement.setInt(2, productId);
-            statement.setInt(3, quantity);
-            statement.executeUpdate();
+            statement.setInt(2, quantity);
+            statement.setInt(3, productId);
+            statement.setInt(4, quantity);
+
+            // 1 = inserted, 2 = incremented, 0 = no such product
+            return statement.executeUpdate() > 0;
         }
         catch (SQLException e)
         {
@@ -114,6 +162,43 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
         }
     }
 
+    @Override
+    public void addAll(int userId, Map<Integer, Integer> quantities)
+    {
+        if (quantities.isEmpty()) return;
+
+        // the same upsert as add, sent as one batch
+        String sql = """
+            INSERT INTO shopping_cart (user_id, product_id, quantity)
+            SELECT ?, product_id, ? FROM products WHERE product_id = ?
+            ON DUPLICATE KEY UPDATE shopping_cart.quantity = shopping_cart.quantity + ?
+        """;
+
+        try
+        {
+            inTransaction(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql))
+                {
+                    for (Map.Entry<Integer, Integer> line : quantities.entrySet())
+                    {
+                        if (line.getValue() <= 0) continue;
+                        statement.setInt(1, userId);
+                        statement.setInt(2, line.getValue());
+                        statement.setInt(3, line.getKey());
+                        statement.setInt(4, line.getValue());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                return null;
+            });
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error adding items to cart", e);
+        }
+    }
+
     @Override
     public void incrementQuantity(int userId, int productId)
     {
@@ -191,4 +276,114 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
             throw new RuntimeException("Error clearing cart", e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void removeOrdered(int userId, Map<Integer, Integer> quantities)
+    {
+        // the order transaction already took the quantities out of shopping_cart
+    }
+
+    /*
+        Takes ordered quantities out of the user's cart on the order's connection: only the ordered products,
+        and only as much as was ordered, so a line added or raised while the order was placed survives.
+        One batch of decrements, then one delete of the lines that reached zero.
+     */
+    static void removeOrdered(Connection connection, int userId, List<OrderLineItem> lines) throws SQLException
+    {
+        String decrementSql = "UPDATE shopping_cart SET quantity = quantity - ? WHERE user_id = ? AND product_id = ?";
+        String deleteSql = "DELETE FROM shopping_cart WHERE user_id = ? AND quantity <= 0";
+
+        try (PreparedStatement decrement = connection.prepareStatement(decrementSql);
+             PreparedStatement delete = connection.prepareStatement(deleteSql))
+        {
+            for (OrderLineItem line : lines)
+            {
+                decrement.setInt(1, line.getQuantity());
+                decrement.setInt(2, userId);
+                decrement.setInt(3, line.getProductId());
+                decrement.addBatch();
+            }
+            decrement.executeBatch();
+
+            delete.setInt(1, userId);
+            delete.executeUpdate();
+        }
+    }
+
+    @Override
+    public ShoppingCart applyChanges(int userId, List<CartItemChange> changes)
+    {
+        // the last change of a product wins, like applying them one by one would
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (CartItemChange change : changes)
+        {
+            quantities.put(change.getProductId(), change.getQuantity());
+        }
+
+        List<QuantityWrite> writes = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> writes.add(new QuantityWrite(userId, productId, quantity)));
+
+        saveAll(List.of(), writes);
+        return getByUserId(userId);
+    }
+
+    /**
+     * Writes the final state of many cart rows in one transaction: the carts of clearedUserIds are
+     * emptied first, then each write sets a quantity (0 removes the row).
+     * Rows for products that no longer exist are skipped instead of failing the batch.
+     */
+    public void saveAll(Collection<Integer> clearedUserIds, Collection<QuantityWrite> writes)
+    {
+        String clearSql = "DELETE FROM shopping_cart WHERE user_id = ?";
+        String deleteSql = "DELETE FROM shopping_cart WHERE user_id = ? AND product_id = ?";
+        String upsertSql = """
+            INSERT INTO shopping_cart (user_id, product_id, quantity)
+            SELECT ?, product_id, ? FROM products WHERE product_id = ?
+            ON DUPLICATE KEY UPDATE shopping_cart.quantity = ?
+        """;
+
+        try
+        {
+            inTransaction(connection -> {
+                try (PreparedStatement clear = connection.prepareStatement(clearSql);
+                     PreparedStatement delete = connection.prepareStatement(deleteSql);
+                     PreparedStatement upsert = connection.prepareStatement(upsertSql))
+                {
+                    for (int userId : clearedUserIds)
+                    {
+                        clear.setInt(1, userId);
+                        clear.addBatch();
+                    }
+                    clear.executeBatch();
+
+                    for (QuantityWrite write : writes)
+                    {
+                        if (write.quantity() <= 0)
+                        {
+                            delete.setInt(1, write.userId());
+                            delete.setInt(2, write.productId());
+                            delete.addBatch();
+                        }
+                        else
+                        {
+                            upsert.setInt(1, write.userId());
+                            upsert.setInt(2, write.quantity());
+                            upsert.setInt(3, write.productId());
+                            upsert.setInt(4, write.quantity());
+                            upsert.addBatch();
+                        }
+                    }
+                    delete.executeBatch();
+                    upsert.executeBatch();
+                }
+                return null;
+            });
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException("Error saving shopping carts", e);
+        }
+    }
+
+    public record QuantityWrite(int userId, int productId, int quantity) { }
+}
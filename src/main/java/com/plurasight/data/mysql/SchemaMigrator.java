@@ -0,0 +1,180 @@
+package com.plurasight.data.mysql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned scripts in classpath:db/migration at startup.
+ * Scripts are named V&lt;version&gt;__&lt;description&gt;.sql and run in version order;
+ * each applied version is recorded in schema_version, so every script runs once per schema.
+ * A named lock keeps two instances starting at the same time from migrating twice.
+ */
+public class SchemaMigrator
+{
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final String LOCK_NAME = "schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    private final DataSource dataSource;
+
+    public SchemaMigrator(DataSource dataSource)
+    {
+        this.dataSource = dataSource;
+    }
+
+    public void migrate()
+    {
+        List<Migration> migrations = findMigrations();
+
+        Connection connection;
+        try
+        {
+            connection = dataSource.getConnection();
+        }
+        catch (SQLException e)
+        {
+            // same as the catalog warm-up: the application can still start without the database
+            LOG.warn("Could not connect to the database, schema migrations were not applied", e);
+            return;
+        }
+
+        try (connection; Statement statement = connection.createStatement())
+        {
+            lock(statement);
+            try
+            {
+                statement.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                        "version INT NOT NULL, " +
+                        "description VARCHAR(200) NOT NULL, " +
+                        "installed_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
+                        "PRIMARY KEY (version))");
+
+                int current = currentVersion(statement);
+                for (Migration migration : migrations)
+                {
+                    if (migration.version() <= current) continue;
+                    apply(connection, statement, migration);
+                }
+            }
+            finally
+            {
+                statement.execute("DO RELEASE_LOCK('" + LOCK_NAME + "')");
+            }
+        }
+        catch (SQLException e)
+        {
+            e.printStackTrace();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void lock(Statement statement) throws SQLException
+    {
+        try (ResultSet row = statement.executeQuery("SELECT GET_LOCK('" + LOCK_NAME + "', " + LOCK_TIMEOUT_SECONDS + ")"))
+        {
+            if (!row.next() || row.getInt(1) != 1)
+                throw new SQLException("Timed out waiting for the schema migration lock");
+        }
+    }
+
+    private static int currentVersion(Statement statement) throws SQLException
+    {
+        try (ResultSet row = statement.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version"))
+        {
+            row.next();
+            return row.getInt(1);
+        }
+    }
+
+    // MySQL commits DDL implicitly, so a script cannot be rolled back; the version is recorded right after it
+    private static void apply(Connection connection, Statement statement, Migration migration) throws SQLException
+    {
+        LOG.info("Applying schema migration {} ({})", migration.version(), migration.description());
+
+        for (String sql : migration.statements())
+        {
+            statement.execute(sql);
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO schema_version (version, description) VALUES (?, ?)"))
+        {
+            insert.setInt(1, migration.version());
+            insert.setString(2, migration.description());
+            insert.executeUpdate();
+        }
+        if (!connection.getAutoCommit()) connection.commit();
+    }
+
+    private static List<Migration> findMigrations()
+    {
+        try
+        {
+            List<Migration> migrations = new ArrayList<>();
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION))
+            {
+                Matcher name = FILE_NAME.matcher(resource.getFilename());
+                if (!name.matches()) continue;
+
+                try (InputStream in = resource.getInputStream())
+                {
+                    String script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    migrations.add(new Migration(Integer.parseInt(name.group(1)),
+                            name.group(2).replace('_', ' '), statements(script)));
+                }
+            }
+            migrations.sort(Comparator.comparingInt(Migration::version));
+            return migrations;
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // scripts hold plain DDL, so splitting on ';' at the end of a line is enough
+    static List<String> statements(String script)
+    {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (String line : script.split("\\R"))
+        {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";"))
+            {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) statements.add(current.toString().trim());
+
+        return statements;
+    }
+
+    private record Migration(int version, String description, List<String> statements) { }
+}
@@ -0,0 +1,83 @@
+package com.plurasight.models;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of a bulk product import.
+ * productIds lines up with the rows of the request; rows that failed have a null id
+ * and an entry in errors.
+ */
+public class BulkImportResult
+{
+    private final List<Integer> productIds = new ArrayList<>();
+    private final List<RowError> errors = new ArrayList<>();
+    private int imported;
+
+    public int getReceived()
+    {
+        return productIds.size();
+    }
+
+    public int getImported()
+    {
+        return imported;
+    }
+
+    public List<Integer> getProductIds()
+    {
+        return productIds;
+    }
+
+    public List<RowError> getErrors()
+    {
+        return errors;
+    }
+
+    // registers the next row of the request and returns its index
+    public int addRow()
+    {
+        productIds.add(null);
+        return productIds.size() - 1;
+    }
+
+    public void imported(int row, int productId)
+    {
+        productIds.set(row, productId);
+        imported++;
+    }
+
+    public void failed(int row, String message)
+    {
+        errors.add(new RowError(row, message));
+    }
+
+    // row retries report errors out of order; sorts them by row once the import is done
+    public void finish()
+    {
+        errors.sort(Comparator.comparingInt(RowError::getRow));
+    }
+
+    public static class RowError
+    {
+        private final int row;
+        private final String message;
+
+        public RowError(int row, String message)
+        {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow()
+        {
+            return row;
+        }
+
+        public String getMessage()
+        {
+            return message;
+        }
+    }
+}
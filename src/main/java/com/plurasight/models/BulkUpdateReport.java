@@ -0,0 +1,77 @@
+package com.plurasight.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// outcome of a bulk price/stock update, with timings for every chunk
+public class BulkUpdateReport
+{
+    private int received;
+    private int updated;
+    private final List<ChunkStats> chunks = new ArrayList<>();
+
+    public int getReceived()
+    {
+        return received;
+    }
+
+    public int getUpdated()
+    {
+        return updated;
+    }
+
+    public List<ChunkStats> getChunks()
+    {
+        return chunks;
+    }
+
+    public void addChunk(int size, int updatedRows, long nanos)
+    {
+        received += size;
+        updated += updatedRows;
+        chunks.add(new ChunkStats(chunks.size(), size, updatedRows, nanos));
+    }
+
+    public static class ChunkStats
+    {
+        private final int chunk;
+        private final int size;
+        private final int updated;
+        private final double millis;
+        private final double rowsPerSecond;
+
+        public ChunkStats(int chunk, int size, int updated, long nanos)
+        {
+            this.chunk = chunk;
+            this.size = size;
+            this.updated = updated;
+            this.millis = nanos / 1_000_000.0;
+            this.rowsPerSecond = nanos == 0 ? 0 : size * 1_000_000_000.0 / nanos;
+        }
+
+        public int getChunk()
+        {
+            return chunk;
+        }
+
+        public int getSize()
+        {
+            return size;
+        }
+
+        public int getUpdated()
+        {
+            return updated;
+        }
+
+        public double getMillis()
+        {
+            return millis;
+        }
+
+        public double getRowsPerSecond()
+        {
+            return rowsPerSecond;
+        }
+    }
+}
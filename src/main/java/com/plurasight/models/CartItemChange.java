@@ -0,0 +1,38 @@
+package com.plurasight.models;
+
+// one line of PATCH /cart: sets the quantity of a product, 0 or less removes it
+public class CartItemChange
+{
+    private int productId;
+    private int quantity;
+
+    public CartItemChange()
+    {
+    }
+
+    public CartItemChange(int productId, int quantity)
+    {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public void setProductId(int productId)
+    {
+        this.productId = productId;
+    }
+
+    public int getQuantity()
+    {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity)
+    {
+        this.quantity = quantity;
+    }
+}
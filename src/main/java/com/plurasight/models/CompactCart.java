@@ -0,0 +1,95 @@
+package com.plurasight.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonView;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lean form of a cart for GET /cart?view=compact: one (productId, quantity, unitPrice, lineTotal)
+ * line per product instead of an embedded product. The products side table, each product once,
+ * is only filled when asked for. Serialized with the product Summary view, so the side table
+ * carries no descriptions.
+ */
+@JsonView(Product.Views.Summary.class)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CompactCart
+{
+    private final List<Line> items = new ArrayList<>();
+    private long totalCents;
+    private Map<Integer, Product> products;
+
+    public void add(int productId, int quantity, long unitPriceCents)
+    {
+        Line line = new Line(productId, quantity, unitPriceCents);
+        items.add(line);
+        totalCents += line.lineTotalCents;
+    }
+
+    public List<Line> getItems()
+    {
+        return items;
+    }
+
+    public BigDecimal getTotal()
+    {
+        return BigDecimal.valueOf(totalCents, 2);
+    }
+
+    @JsonIgnore
+    public long getTotalCents()
+    {
+        return totalCents;
+    }
+
+    public Map<Integer, Product> getProducts()
+    {
+        return products;
+    }
+
+    public void setProducts(Map<Integer, Product> products)
+    {
+        this.products = products;
+    }
+
+    @JsonView(Product.Views.Summary.class)
+    public static class Line
+    {
+        private final int productId;
+        private final int quantity;
+        private final long unitPriceCents;
+        private final long lineTotalCents;
+
+        public Line(int productId, int quantity, long unitPriceCents)
+        {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.unitPriceCents = unitPriceCents;
+            this.lineTotalCents = unitPriceCents * quantity;
+        }
+
+        public int getProductId()
+        {
+            return productId;
+        }
+
+        public int getQuantity()
+        {
+            return quantity;
+        }
+
+        public BigDecimal getUnitPrice()
+        {
+            return BigDecimal.valueOf(unitPriceCents, 2);
+        }
+
+        public BigDecimal getLineTotal()
+        {
+            return BigDecimal.valueOf(lineTotalCents, 2);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.plurasight.models;
+
+import java.math.BigDecimal;
+
+public class OrderLineItem
+{
+    private int orderLineItemId;
+    private int orderId;
+    private int productId;
+    // the product's price when the order was placed
+    private BigDecimal salesPrice = BigDecimal.ZERO;
+    private int quantity;
+    private BigDecimal discount = BigDecimal.ZERO;
+
+    public OrderLineItem()
+    {
+    }
+
+    public OrderLineItem(int productId, int quantity)
+    {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public OrderLineItem(int orderLineItemId, int orderId, int productId, BigDecimal salesPrice, int quantity, BigDecimal discount)
+    {
+        this.orderLineItemId = orderLineItemId;
+        this.orderId = orderId;
+        this.productId = productId;
+        this.salesPrice = salesPrice;
+        this.quantity = quantity;
+        this.discount = discount;
+    }
+
+    public int getOrderLineItemId()
+    {
+        return orderLineItemId;
+    }
+
+    public void setOrderLineItemId(int orderLineItemId)
+    {
+        this.orderLineItemId = orderLineItemId;
+    }
+
+    public int getOrderId()
+    {
+        return orderId;
+    }
+
+    public void setOrderId(int orderId)
+    {
+        this.orderId = orderId;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public void setProductId(int productId)
+    {
+        this.productId = productId;
+    }
+
+    public BigDecimal getSalesPrice()
+    {
+        return salesPrice;
+    }
+
+    public void setSalesPrice(BigDecimal salesPrice)
+    {
+        this.salesPrice = salesPrice;
+    }
+
+    public int getQuantity()
+    {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity)
+    {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getDiscount()
+    {
+        return discount;
+    }
+
+    public void setDiscount(BigDecimal discount)
+    {
+        this.discount = discount;
+    }
+
+    public BigDecimal getLineTotal()
+    {
+        return salesPrice.multiply(BigDecimal.valueOf(quantity)).subtract(discount);
+    }
+}
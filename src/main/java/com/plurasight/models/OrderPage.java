@@ -0,0 +1,59 @@
+package com.plurasight.models;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a user's order history, newest first.
+ * The next cursor is null on the last page.
+ */
+public class OrderPage
+{
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private final List<Order> orders;
+    private final String nextCursor;
+
+    public OrderPage(List<Order> orders, String nextCursor)
+    {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Order> getOrders()
+    {
+        return orders;
+    }
+
+    public String getNextCursor()
+    {
+        return nextCursor;
+    }
+
+    // cursors are opaque to clients, they carry the date and id of the last order of the page
+    public static String encodeCursor(Order last)
+    {
+        byte[] bytes = (last.getDate() + "|" + last.getOrderId()).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static Cursor decodeCursor(String cursor)
+    {
+        try
+        {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split("\\|");
+            if (parts.length != 2) throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+            return new Cursor(LocalDateTime.parse(parts[0]), Integer.parseInt(parts[1]));
+        }
+        catch (IllegalArgumentException | DateTimeParseException e)
+        {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+    }
+
+    public record Cursor(LocalDateTime date, int orderId) { }
+}
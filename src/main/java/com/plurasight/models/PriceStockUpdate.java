@@ -0,0 +1,52 @@
+package com.plurasight.models;
+
+import java.math.BigDecimal;
+
+// a price and/or stock change for one product; a null field is left unchanged
+public class PriceStockUpdate
+{
+    private int productId;
+    private BigDecimal price;
+    private Integer stock;
+
+    public PriceStockUpdate()
+    {
+    }
+
+    public PriceStockUpdate(int productId, BigDecimal price, Integer stock)
+    {
+        this.productId = productId;
+        this.price = price;
+        this.stock = stock;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public void setProductId(int productId)
+    {
+        this.productId = productId;
+    }
+
+    public BigDecimal getPrice()
+    {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price)
+    {
+        this.price = price;
+    }
+
+    public Integer getStock()
+    {
+        return stock;
+    }
+
+    public void setStock(Integer stock)
+    {
+        this.stock = stock;
+    }
+}
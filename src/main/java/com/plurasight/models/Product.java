@@ -1,18 +1,33 @@
 package com.plurasight.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonView;
+
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
+@JsonView(Product.Views.Summary.class)
 public class Product
 {
+    // serialization views, so list endpoints can leave out the description
+    public interface Views
+    {
+        interface Summary { }
+        interface Full extends Summary { }
+    }
+
     private int productId;
     private String name;
     private BigDecimal price;
     private int categoryId;
+    @JsonView(Views.Full.class)
     private String description;
     private String subCategory;
     private int stock;
     private boolean isFeatured;
     private String imageUrl;
+    // the price in cents, converted once for cart arithmetic
+    private long priceCents;
 
     public Product()
     {
@@ -23,6 +38,7 @@ public class Product
         this.productId = productId;
         this.name = name;
         this.price = price;
+        this.priceCents = toCents(price);
         this.categoryId = categoryId;
         this.description = description;
         this.subCategory = subCategory;
@@ -59,6 +75,19 @@ public class Product
     public void setPrice(BigDecimal price)
     {
         this.price = price;
+        this.priceCents = toCents(price);
+    }
+
+    @JsonIgnore
+    public long getPriceCents()
+    {
+        return priceCents;
+    }
+
+    private static long toCents(BigDecimal amount)
+    {
+        if (amount == null) return 0;
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
     }
 
     public int getCategoryId()
@@ -0,0 +1,104 @@
+package com.plurasight.models;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Product counts for the storefront sidebar: per category, per sub category
+ * (lower-cased, the way search matches it) and per price bucket.
+ */
+public class ProductFacets
+{
+    // lower bounds of the price buckets; the last bucket has no upper bound
+    public static final BigDecimal[] PRICE_BUCKET_BOUNDS = {
+            BigDecimal.ZERO,
+            new BigDecimal("25"),
+            new BigDecimal("50"),
+            new BigDecimal("100"),
+            new BigDecimal("250"),
+            new BigDecimal("500")
+    };
+
+    private int total;
+    private final Map<Integer, Integer> categories = new TreeMap<>();
+    private final Map<String, Integer> subCategories = new TreeMap<>();
+    private final long[] priceBucketCounts = new long[PRICE_BUCKET_BOUNDS.length];
+
+    public static int priceBucketOf(BigDecimal price)
+    {
+        for (int i = PRICE_BUCKET_BOUNDS.length - 1; i > 0; i--)
+        {
+            if (price.compareTo(PRICE_BUCKET_BOUNDS[i]) >= 0) return i;
+        }
+        return 0;
+    }
+
+    // adds count products sharing the same category, sub category and price bucket
+    public void add(int categoryId, String subCategory, int priceBucket, int count)
+    {
+        total += count;
+        categories.merge(categoryId, count, Integer::sum);
+        if (subCategory != null)
+            subCategories.merge(subCategory, count, Integer::sum);
+        priceBucketCounts[priceBucket] += count;
+    }
+
+    public int getTotal()
+    {
+        return total;
+    }
+
+    public Map<Integer, Integer> getCategories()
+    {
+        return categories;
+    }
+
+    public Map<String, Integer> getSubCategories()
+    {
+        return subCategories;
+    }
+
+    public List<PriceBucket> getPriceBuckets()
+    {
+        List<PriceBucket> buckets = new ArrayList<>(PRICE_BUCKET_BOUNDS.length);
+        for (int i = 0; i < PRICE_BUCKET_BOUNDS.length; i++)
+        {
+            BigDecimal max = i + 1 < PRICE_BUCKET_BOUNDS.length ? PRICE_BUCKET_BOUNDS[i + 1] : null;
+            buckets.add(new PriceBucket(PRICE_BUCKET_BOUNDS[i], max, priceBucketCounts[i]));
+        }
+        return buckets;
+    }
+
+    // min is inclusive, max is exclusive and null for the last bucket
+    public static class PriceBucket
+    {
+        private final BigDecimal min;
+        private final BigDecimal max;
+        private final long count;
+
+        public PriceBucket(BigDecimal min, BigDecimal max, long count)
+        {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public BigDecimal getMin()
+        {
+            return min;
+        }
+
+        public BigDecimal getMax()
+        {
+            return max;
+        }
+
+        public long getCount()
+        {
+            return count;
+        }
+    }
+}
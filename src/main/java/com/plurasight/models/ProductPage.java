@@ -0,0 +1,54 @@
+package com.plurasight.models;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated product listing.
+ * The next cursor is null on the last page.
+ */
+public class ProductPage
+{
+    public static final int DEFAULT_LIMIT = 24;
+    public static final int MAX_LIMIT = 100;
+
+    private final List<Product> products;
+    private final String nextCursor;
+
+    public ProductPage(List<Product> products, String nextCursor)
+    {
+        this.products = products;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Product> getProducts()
+    {
+        return products;
+    }
+
+    public String getNextCursor()
+    {
+        return nextCursor;
+    }
+
+    // cursors are opaque to clients, they only carry the last product id of the page
+    public static String encodeCursor(int lastProductId)
+    {
+        byte[] bytes = String.valueOf(lastProductId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public static int decodeCursor(String cursor)
+    {
+        try
+        {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            return Integer.parseInt(new String(bytes, StandardCharsets.US_ASCII));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+    }
+}
@@ -1,33 +1,57 @@
 package com.plurasight.models;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.plurasight.utils.IntObjectMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Items keyed by product id in a primitive int map. The total is kept in cents and
+ * updated as items are added, removed or changed, so reading it never walks the items.
+ * Serializes as {"items": {"&lt;productId&gt;": item, ...}, "total": ...}.
+ */
+@JsonSerialize(using = ShoppingCart.Serializer.class)
 public class ShoppingCart
 {
-    private Map<Integer, ShoppingCartItem> items = new HashMap<>();
+    private final IntObjectMap<ShoppingCartItem> items = new IntObjectMap<>();
+    private long totalCents;
 
+    // a copy; change the cart through add, remove and clear
     public Map<Integer, ShoppingCartItem> getItems() {
-        return items;
+        Map<Integer, ShoppingCartItem> copy = new LinkedHashMap<>();
+        items.forEach(copy::put);
+        return copy;
     }
 
     public void setItems(Map<Integer, ShoppingCartItem> items) {
-        this.items = items;
+        clear();
+        items.values().forEach(this::add);
     }
 
     public boolean contains(int productId) {
         return items.containsKey(productId);
     }
 
+    public int size() {
+        return items.size();
+    }
 
     public void add(ShoppingCartItem item) {
         int productId = item.getProductId();
-        if (contains(productId)) {
-            ShoppingCartItem existingItem = items.get(productId);
+        ShoppingCartItem existingItem = items.get(productId);
+        if (existingItem != null) {
             existingItem.incrementQuantity(item.getQuantity());
         } else {
             items.put(productId, item);
+            item.attach(this);
+            totalCents += item.getLineTotalCents();
         }
     }
 
@@ -36,16 +60,56 @@ public class ShoppingCart
     }
 
     public void remove(int productId) {
-        items.remove(productId);
+        ShoppingCartItem item = items.remove(productId);
+        if (item != null) {
+            item.attach(null);
+            totalCents -= item.getLineTotalCents();
+        }
     }
 
     public void clear() {
+        items.forEach((productId, item) -> item.attach(null));
         items.clear();
+        totalCents = 0;
     }
 
     public BigDecimal getTotal() {
-        return items.values().stream()
-                .map(ShoppingCartItem::getLineTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return BigDecimal.valueOf(totalCents, 2);
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    void lineTotalChanged(long previousCents, long currentCents) {
+        totalCents += currentCents - previousCents;
+    }
+
+    // writes the items straight from the int map, without building a boxed map first
+    static class Serializer extends JsonSerializer<ShoppingCart>
+    {
+        @Override
+        public void serialize(ShoppingCart cart, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            JsonSerializer<Object> itemSerializer = provider.findValueSerializer(ShoppingCartItem.class);
+
+            generator.writeStartObject();
+            generator.writeFieldName("items");
+            generator.writeStartObject();
+            try {
+                cart.items.forEach((productId, item) -> {
+                    try {
+                        generator.writeFieldName(Integer.toString(productId));
+                        itemSerializer.serialize(item, generator, provider);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndObject();
+            generator.writeNumberField("total", cart.getTotal());
+            generator.writeEndObject();
+        }
     }
 }
@@ -6,14 +6,23 @@ import java.math.RoundingMode;
 
 public class ShoppingCartItem
 {
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
     private Product product;
     private int quantity = 1;
     private BigDecimal discountPercent = BigDecimal.ZERO; // as percent, e.g., 10 = 10%
 
+    // money is kept in cents; the line total is recomputed only when price, quantity or discount change
+    private long unitPriceCents;
+    private long lineTotalCents;
+    // the cart this item is in, told about every change of the line total
+    private ShoppingCart cart;
+
     public ShoppingCartItem() { }
 
     public ShoppingCartItem(Product product, int quantity) {
         this.product = product;
+        this.unitPriceCents = product != null ? product.getPriceCents() : 0;
         setQuantity(quantity);
     }
 
@@ -23,6 +32,8 @@ public class ShoppingCartItem
 
     public void setProduct(Product product) {
         this.product = product;
+        this.unitPriceCents = product != null ? product.getPriceCents() : 0;
+        recalculate();
     }
 
     public int getQuantity() {
@@ -35,11 +46,13 @@ public class ShoppingCartItem
         } else {
             this.quantity = quantity;
         }
+        recalculate();
     }
 
     public void incrementQuantity(int amount) {
         if (amount > 0) {
             this.quantity += amount;
+            recalculate();
         }
     }
 
@@ -50,11 +63,12 @@ public class ShoppingCartItem
     public void setDiscountPercent(BigDecimal discountPercent) {
         if (discountPercent == null || discountPercent.compareTo(BigDecimal.ZERO) < 0) {
             this.discountPercent = BigDecimal.ZERO;
-        } else if (discountPercent.compareTo(BigDecimal.valueOf(100)) > 0) {
-            this.discountPercent = BigDecimal.valueOf(100);
+        } else if (discountPercent.compareTo(HUNDRED) > 0) {
+            this.discountPercent = HUNDRED;
         } else {
             this.discountPercent = discountPercent;
         }
+        recalculate();
     }
 
     @JsonIgnore
@@ -63,15 +77,28 @@ public class ShoppingCartItem
     }
 
     public BigDecimal getLineTotal() {
-        if (product == null) return BigDecimal.ZERO;
+        return BigDecimal.valueOf(lineTotalCents, 2);
+    }
+
+    @JsonIgnore
+    public long getLineTotalCents() {
+        return lineTotalCents;
+    }
+
+    void attach(ShoppingCart cart) {
+        this.cart = cart;
+    }
 
-        BigDecimal basePrice = product.getPrice();
-        BigDecimal qty = BigDecimal.valueOf(quantity);
+    private void recalculate() {
+        long previous = lineTotalCents;
 
-        BigDecimal subTotal = basePrice.multiply(qty);
-        BigDecimal discountAmount = subTotal.multiply(discountPercent)
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+        long subTotal = unitPriceCents * quantity;
+        long discount = discountPercent.signum() == 0
+                ? 0
+                : BigDecimal.valueOf(subTotal).multiply(discountPercent)
+                        .divide(HUNDRED, 0, RoundingMode.HALF_UP).longValue();
+        lineTotalCents = subTotal - discount;
 
-        return subTotal.subtract(discountAmount);
+        if (cart != null && previous != lineTotalCents) cart.lineTotalChanged(previous, lineTotalCents);
     }
-}
\ No newline at end of file
+}
@@ -9,6 +9,8 @@ public class LoginDto {
 
    private String username;
    private String password;
+   // optional: the guest cart to merge into the user's cart
+   private String guestCartId;
 
    public String getUsername() {
       return username;
@@ -26,6 +28,14 @@ public class LoginDto {
       this.password = password;
    }
 
+   public String getGuestCartId() {
+      return guestCartId;
+   }
+
+   public void setGuestCartId(String guestCartId) {
+      this.guestCartId = guestCartId;
+   }
+
    @Override
    public String toString() {
       return "LoginDTO{" +
@@ -0,0 +1,88 @@
+package com.plurasight.services;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for the catalog, used to build ETags without loading anything.
+ * Admin writes bump the versions of what they changed. Callers should take the ETag
+ * before reading the data, so a concurrent write can only make a response look older
+ * than it is, never newer.
+ */
+@Service
+public class CatalogVersionService
+{
+    // ETags from an earlier run of the application must never match
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong clock = new AtomicLong();
+    private volatile long catalogVersion;
+    private volatile long categoriesVersion;
+    private final Map<Integer, Long> productVersions = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> categoryVersions = new ConcurrentHashMap<>();
+
+    public void productChanged(int productId)
+    {
+        long version = clock.incrementAndGet();
+        productVersions.put(productId, version);
+        catalogVersion = version;
+    }
+
+    public void productsChanged(Collection<Integer> productIds)
+    {
+        long version = clock.incrementAndGet();
+        for (Integer productId : productIds)
+        {
+            productVersions.put(productId, version);
+        }
+        catalogVersion = version;
+    }
+
+    public void categoryChanged(int categoryId)
+    {
+        long version = clock.incrementAndGet();
+        categoryVersions.put(categoryId, version);
+        categoriesVersion = version;
+    }
+
+    public long getCatalogVersion()
+    {
+        return catalogVersion;
+    }
+
+    // any product listing or search
+    public String catalogEtag()
+    {
+        return etag("c", catalogVersion);
+    }
+
+    public String productEtag(int productId)
+    {
+        return etag("p" + productId, productVersions.getOrDefault(productId, 0L));
+    }
+
+    public String categoriesEtag()
+    {
+        return etag("cs", categoriesVersion);
+    }
+
+    public String categoryEtag(int categoryId)
+    {
+        return etag("c" + categoryId, categoryVersions.getOrDefault(categoryId, 0L));
+    }
+
+    // the products of a category depend on the category still existing as well as on the products
+    public String categoryProductsEtag(int categoryId)
+    {
+        return etag("cp" + categoryId, Math.max(catalogVersion, categoryVersions.getOrDefault(categoryId, 0L)));
+    }
+
+    private String etag(String scope, long version)
+    {
+        return "\"" + scope + "-" + epoch + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,145 @@
+package com.plurasight.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.plurasight.data.CategoryDao;
+import com.plurasight.models.Category;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Categories kept in memory as ready-to-send JSON, plain and gzipped.
+ * Categories almost never change, so reads only copy bytes to the response.
+ * Admin writes call {@link #categoryChanged(int)}, which builds a new set of
+ * entries and swaps it in at once; readers see either the old or the new set.
+ */
+@Service
+public class CategoryResponseCache
+{
+    private final CategoryDao categoryDao;
+    private final ObjectMapper objectMapper;
+    private final Object writeLock = new Object();
+    private volatile Entries entries;
+
+    @Autowired
+    public CategoryResponseCache(CategoryDao categoryDao, ObjectMapper objectMapper)
+    {
+        this.categoryDao = categoryDao;
+        this.objectMapper = objectMapper;
+    }
+
+    public CachedJson all()
+    {
+        return entries().all;
+    }
+
+    // null when the category does not exist
+    public CachedJson byId(int categoryId)
+    {
+        return entries().byId.get(categoryId);
+    }
+
+    public boolean exists(int categoryId)
+    {
+        return entries().byId.containsKey(categoryId);
+    }
+
+    // re-reads one category after an admin write; the list is re-serialized, the other categories are reused
+    public void categoryChanged(int categoryId)
+    {
+        synchronized (writeLock)
+        {
+            Entries current = entries;
+            if (current == null) return; // nothing loaded yet, the first read loads everything
+
+            Map<Integer, Category> categories = new TreeMap<>(current.categories);
+            Map<Integer, CachedJson> byId = new TreeMap<>(current.byId);
+
+            Category category = categoryDao.getById(categoryId);
+            if (category != null)
+            {
+                categories.put(categoryId, category);
+                byId.put(categoryId, serialize(category));
+            }
+            else
+            {
+                categories.remove(categoryId);
+                byId.remove(categoryId);
+            }
+
+            entries = new Entries(categories, byId, serialize(new ArrayList<>(categories.values())));
+        }
+    }
+
+    private Entries entries()
+    {
+        Entries current = entries;
+        if (current != null) return current;
+
+        synchronized (writeLock)
+        {
+            if (entries == null)
+            {
+                Map<Integer, Category> categories = new TreeMap<>();
+                Map<Integer, CachedJson> byId = new TreeMap<>();
+                for (Category category : categoryDao.getAllCategories())
+                {
+                    categories.put(category.getCategoryId(), category);
+                    byId.put(category.getCategoryId(), serialize(category));
+                }
+                entries = new Entries(categories, byId, serialize(new ArrayList<>(categories.values())));
+            }
+            return entries;
+        }
+    }
+
+    private CachedJson serialize(Object value)
+    {
+        try
+        {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+
+            ByteArrayOutputStream gzipped = new ByteArrayOutputStream(json.length / 2 + 32);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped))
+            {
+                gzip.write(json);
+            }
+            return new CachedJson(json, gzipped.toByteArray());
+        }
+        catch (JsonProcessingException e)
+        {
+            throw new RuntimeException(e);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Entries
+    {
+        private final Map<Integer, Category> categories;
+        private final Map<Integer, CachedJson> byId;
+        private final CachedJson all;
+
+        private Entries(Map<Integer, Category> categories, Map<Integer, CachedJson> byId, CachedJson all)
+        {
+            this.categories = Collections.unmodifiableMap(categories);
+            this.byId = Collections.unmodifiableMap(byId);
+            this.all = all;
+        }
+    }
+
+    // the byte arrays are shared between requests and must not be modified
+    public record CachedJson(byte[] json, byte[] gzip) { }
+}
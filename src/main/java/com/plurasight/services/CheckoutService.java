@@ -0,0 +1,115 @@
+package com.plurasight.services;
+
+import com.plurasight.data.OrderDao;
+import com.plurasight.data.OutOfStockException;
+import com.plurasight.data.ProfileDao;
+import com.plurasight.data.ShoppingCartDao;
+import com.plurasight.data.memory.InMemoryProductDao;
+import com.plurasight.models.Order;
+import com.plurasight.models.OrderLineItem;
+import com.plurasight.models.Profile;
+import com.plurasight.models.ShoppingCart;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns a user's cart into an order shipped to the address on their profile.
+ * The stock is reserved in the InventoryService first, so a sold-out product is turned away without
+ * touching the database. The order, the stock and the cart rows are then written in one transaction
+ * by the OrderDao; only the ordered quantities leave the cart, in the database and in the in-memory copy
+ * of a write-behind cart, so a line added while the order was placed is kept.
+ */
+@Service
+public class CheckoutService
+{
+    private final OrderDao orderDao;
+    private final ShoppingCartDao shoppingCartDao;
+    private final ProfileDao profileDao;
+    private final InventoryService inventory;
+    private final InMemoryProductDao catalog;
+    private final CatalogVersionService catalogVersions;
+
+    // a double-clicked checkout must not place the same cart twice
+    private final Set<Integer> checkingOut = ConcurrentHashMap.newKeySet();
+
+    public CheckoutService(OrderDao orderDao, ShoppingCartDao shoppingCartDao, ProfileDao profileDao, InventoryService inventory,
+                           InMemoryProductDao catalog, CatalogVersionService catalogVersions)
+    {
+        this.orderDao = orderDao;
+        this.shoppingCartDao = shoppingCartDao;
+        this.profileDao = profileDao;
+        this.inventory = inventory;
+        this.catalog = catalog;
+        this.catalogVersions = catalogVersions;
+    }
+
+    // throws IllegalStateException for an empty cart or a checkout already running, OutOfStockException when stock is short
+    public Order checkout(int userId)
+    {
+        if (!checkingOut.add(userId))
+            throw new IllegalStateException("A checkout for this cart is already in progress");
+
+        try
+        {
+            ShoppingCart cart = shoppingCartDao.getByUserId(userId);
+            if (cart.size() == 0)
+                throw new IllegalStateException("The cart is empty");
+
+            Profile profile = profileDao.getByUserId(userId);
+            if (profile == null)
+                throw new IllegalStateException("A profile with a shipping address is required");
+
+            Map<Integer, Integer> quantities = new LinkedHashMap<>();
+            List<OrderLineItem> lines = new ArrayList<>(cart.size());
+            cart.getItems().forEach((productId, item) -> {
+                quantities.put(productId, item.getQuantity());
+                lines.add(new OrderLineItem(productId, item.getQuantity()));
+            });
+
+            Order order = new Order(0, userId, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS),
+                    profile.getAddress(), profile.getCity(), profile.getState(), profile.getZip(), BigDecimal.ZERO);
+            order.setLineItems(lines);
+
+            InventoryService.Reservation reservation = inventory.reserve(quantities);
+            Order created;
+            try
+            {
+                created = orderDao.create(order);
+            }
+            catch (OutOfStockException e)
+            {
+                // the database had less than we thought, so catch up on those products
+                inventory.release(reservation);
+                inventory.refresh(e.getProductIds());
+                throw e;
+            }
+            catch (RuntimeException e)
+            {
+                inventory.release(reservation);
+                throw e;
+            }
+            inventory.commit(reservation);
+
+            // the stock went down in MySQL only, so the cached catalog and its ETags have to follow
+            catalog.stockTaken(quantities);
+            catalogVersions.productsChanged(quantities.keySet());
+
+            // only what was ordered leaves the cart; anything added meanwhile stays
+            shoppingCartDao.removeOrdered(userId, quantities);
+            return created;
+        }
+        finally
+        {
+            checkingOut.remove(userId);
+        }
+    }
+}
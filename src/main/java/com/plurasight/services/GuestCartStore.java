@@ -0,0 +1,177 @@
+package com.plurasight.services;
+
+import com.plurasight.models.CartItemChange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carts of visitors who are not logged in, kept only in memory because most are abandoned.
+ * Carts are keyed by an unguessable guest cart id. A cart that has not been used for the TTL
+ * expires, and when the store is full the least recently used cart is evicted.
+ */
+@Service
+public class GuestCartStore
+{
+    public static final int MAX_LINES = 200;
+
+    // rough heap cost of a cart and of one line, for the memory estimate
+    private static final int CART_BYTES = 240;
+    private static final int LINE_BYTES = 80;
+
+    private final SecureRandom random = new SecureRandom();
+    private final int maxCarts;
+    private final long ttlNanos;
+
+    // access order, so the eldest entry is always the least recently used cart
+    private final LinkedHashMap<String, GuestCart> carts = new LinkedHashMap<>(16, 0.75f, true);
+    private long lines;
+    private long created;
+    private long merged;
+    private long evictions;
+    private long expirations;
+
+    public GuestCartStore(@Value("${guest-cart.max-carts:100000}") int maxCarts,
+                          @Value("${guest-cart.ttl-hours:72}") long ttlHours)
+    {
+        this.maxCarts = maxCarts;
+        this.ttlNanos = TimeUnit.HOURS.toNanos(ttlHours);
+    }
+
+    public synchronized String create()
+    {
+        expire();
+        if (carts.size() >= maxCarts)
+        {
+            Iterator<GuestCart> eldest = carts.values().iterator();
+            lines -= eldest.next().quantities.size();
+            eldest.remove();
+            evictions++;
+        }
+
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String guestCartId = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        carts.put(guestCartId, new GuestCart(System.nanoTime()));
+        created++;
+        return guestCartId;
+    }
+
+    // product id -> quantity, in the order the products were added; null when the cart does not exist
+    public synchronized Map<Integer, Integer> get(String guestCartId)
+    {
+        GuestCart cart = touch(guestCartId);
+        return cart == null ? null : new LinkedHashMap<>(cart.quantities);
+    }
+
+    // false when the cart does not exist or is full
+    public synchronized boolean add(String guestCartId, int productId, int quantity)
+    {
+        GuestCart cart = touch(guestCartId);
+        if (cart == null) return false;
+        if (!cart.quantities.containsKey(productId) && cart.quantities.size() >= MAX_LINES) return false;
+
+        set(cart, productId, cart.quantities.getOrDefault(productId, 0) + quantity);
+        return true;
+    }
+
+    // quantity 0 or less removes the product; false when the cart does not exist
+    public synchronized boolean applyChanges(String guestCartId, List<CartItemChange> changes)
+    {
+        GuestCart cart = touch(guestCartId);
+        if (cart == null) return false;
+
+        for (CartItemChange change : changes)
+        {
+            boolean present = cart.quantities.containsKey(change.getProductId());
+            if (present || cart.quantities.size() < MAX_LINES)
+                set(cart, change.getProductId(), change.getQuantity());
+        }
+        return true;
+    }
+
+    public synchronized boolean delete(String guestCartId)
+    {
+        GuestCart cart = carts.remove(guestCartId);
+        if (cart == null) return false;
+        lines -= cart.quantities.size();
+        return true;
+    }
+
+    // removes the cart for merging into a user's cart and returns its quantities; null when it does not exist
+    // only one caller ever gets a cart, so a repeated login cannot merge it twice
+    public synchronized Map<Integer, Integer> take(String guestCartId)
+    {
+        GuestCart cart = touch(guestCartId);
+        if (cart == null) return null;
+
+        delete(guestCartId);
+        merged++;
+        return cart.quantities;
+    }
+
+    public synchronized Stats stats()
+    {
+        expire();
+        return new Stats(carts.size(), maxCarts, lines, carts.size() * (long) CART_BYTES + lines * LINE_BYTES,
+                created, merged, evictions, expirations);
+    }
+
+    private GuestCart touch(String guestCartId)
+    {
+        expire();
+        if (guestCartId == null) return null;
+
+        GuestCart cart = carts.get(guestCartId);
+        if (cart != null) cart.lastAccess = System.nanoTime();
+        return cart;
+    }
+
+    private void set(GuestCart cart, int productId, int quantity)
+    {
+        Integer previous = quantity > 0
+                ? cart.quantities.put(productId, quantity)
+                : cart.quantities.remove(productId);
+
+        if (previous == null && quantity > 0) lines++;
+        if (previous != null && quantity <= 0) lines--;
+    }
+
+    // the least recently used carts come first, so expired ones are always at the head
+    private void expire()
+    {
+        long now = System.nanoTime();
+        Iterator<GuestCart> eldest = carts.values().iterator();
+        while (eldest.hasNext())
+        {
+            GuestCart cart = eldest.next();
+            if (now - cart.lastAccess < ttlNanos) break;
+
+            lines -= cart.quantities.size();
+            eldest.remove();
+            expirations++;
+        }
+    }
+
+    private static final class GuestCart
+    {
+        private final Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        private long lastAccess;
+
+        private GuestCart(long now)
+        {
+            this.lastAccess = now;
+        }
+    }
+
+    public record Stats(int carts, int maxCarts, long lines, long estimatedBytes,
+                        long created, long merged, long evictions, long expirations) { }
+}
@@ -0,0 +1,347 @@
+package com.plurasight.services;
+
+import com.plurasight.data.OutOfStockException;
+import com.plurasight.data.mysql.MySqlProductDao;
+import com.plurasight.utils.IntObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Stock kept in memory so that oversells are turned away without waiting on a database row lock.
+ * Each product tracks the stock last read from MySQL and the units reserved by checkouts in progress.
+ * A reservation takes all of its lines or none of them, and is released after the TTL unless it is
+ * committed or released first. Products are guarded by striped locks, so reservations of different
+ * products rarely wait on each other.
+ * The durable write stays the guarded stock update of the checkout transaction; committing a reservation
+ * moves the in-memory stock along with it. The stock of tracked products is re-read from MySQL on every
+ * sync, which picks up admin edits and anything else that changed the column.
+ */
+@Service
+public class InventoryService
+{
+    private static final Logger LOG = LoggerFactory.getLogger(InventoryService.class);
+    // a power of two, so a product id maps to its stripe with a mask
+    private static final int STRIPES = 64;
+
+    private final MySqlProductDao productDao;
+    private final long ttlNanos;
+    private final long syncIntervalMillis;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    // counters are only read or changed holding the lock of their stripe
+    private final Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<Long, Reservation> reservations = new ConcurrentHashMap<>();
+    private final AtomicLong nextReservationId = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public InventoryService(MySqlProductDao productDao,
+                            @Value("${inventory.reservation-ttl-seconds:600}") long ttlSeconds,
+                            @Value("${inventory.sync-interval-seconds:30}") long syncIntervalSeconds)
+    {
+        this(productDao, TimeUnit.SECONDS.toNanos(ttlSeconds), TimeUnit.SECONDS.toMillis(syncIntervalSeconds), System::nanoTime);
+    }
+
+    InventoryService(MySqlProductDao productDao, long ttlNanos, long syncIntervalMillis, LongSupplier nanoClock)
+    {
+        this.productDao = productDao;
+        this.ttlNanos = ttlNanos;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.nanoClock = nanoClock;
+
+        for (int i = 0; i < STRIPES; i++)
+        {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::expireAndSync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    // product id -> quantity; throws OutOfStockException naming every short product, and then reserves nothing
+    public Reservation reserve(Map<Integer, Integer> quantities)
+    {
+        for (int quantity : quantities.values())
+        {
+            if (quantity <= 0) throw new IllegalArgumentException("Quantities must be positive");
+        }
+        load(quantities.keySet());
+
+        int[] stripes = stripesOf(quantities.keySet());
+        lock(stripes);
+        try
+        {
+            List<Integer> shortProductIds = new ArrayList<>();
+            quantities.forEach((productId, quantity) -> {
+                Counter counter = counters.get(productId);
+                if (counter == null || counter.stock - counter.reserved < quantity) shortProductIds.add(productId);
+            });
+            if (!shortProductIds.isEmpty())
+            {
+                rejected.incrementAndGet();
+                throw new OutOfStockException(shortProductIds);
+            }
+
+            quantities.forEach((productId, quantity) -> counters.get(productId).reserved += quantity);
+        }
+        finally
+        {
+            unlock(stripes);
+        }
+
+        Reservation reservation = new Reservation(nextReservationId.incrementAndGet(), Map.copyOf(quantities), nanoClock.getAsLong() + ttlNanos);
+        reservations.put(reservation.id(), reservation);
+        return reservation;
+    }
+
+    // the units were sold and the database stock already taken; also applies to a reservation that expired meanwhile
+    public void commit(Reservation reservation)
+    {
+        boolean open = reservations.remove(reservation.id()) != null;
+
+        int[] stripes = stripesOf(reservation.quantities().keySet());
+        lock(stripes);
+        try
+        {
+            reservation.quantities().forEach((productId, quantity) -> {
+                Counter counter = counters.get(productId);
+                if (counter == null) return;
+
+                counter.stock -= quantity;
+                if (open) counter.reserved -= quantity;
+                counter.version++;
+            });
+        }
+        finally
+        {
+            unlock(stripes);
+        }
+    }
+
+    // false when the reservation was already committed, released or expired
+    public boolean release(Reservation reservation)
+    {
+        if (!reservations.remove(reservation.id(), reservation)) return false;
+
+        unreserve(reservation);
+        return true;
+    }
+
+    // units that can still be reserved
+    public int available(int productId)
+    {
+        load(List.of(productId));
+
+        ReentrantLock lock = locks[productId & (STRIPES - 1)];
+        lock.lock();
+        try
+        {
+            Counter counter = counters.get(productId);
+            return counter == null ? 0 : counter.stock - counter.reserved;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // releases every reservation past its TTL
+    public void expire()
+    {
+        long now = nanoClock.getAsLong();
+        for (Reservation reservation : reservations.values())
+        {
+            if (now - reservation.expiresAtNanos() >= 0 && reservations.remove(reservation.id(), reservation))
+            {
+                unreserve(reservation);
+                expired.incrementAndGet();
+            }
+        }
+    }
+
+    // re-reads the stock of every tracked product
+    public void sync()
+    {
+        refresh(new ArrayList<>(counters.keySet()));
+    }
+
+    /*
+        Re-reads the stock of the given products with one query per 500 ids; untracked ids are skipped.
+        A product committed to while the query ran keeps its count: the value read may be from before
+        that order's stock update, and the next sync reads it again.
+     */
+    public void refresh(Collection<Integer> productIds)
+    {
+        if (productIds.isEmpty()) return;
+
+        IntObjectMap<Long> versions = new IntObjectMap<>(productIds.size());
+        List<Integer> tracked = new ArrayList<>(productIds.size());
+        for (int productId : productIds)
+        {
+            withStripe(productId, counter -> {
+                versions.put(productId, counter.version);
+                tracked.add(productId);
+            });
+        }
+        // products nobody has reserved yet are read fresh on their first reservation
+        if (tracked.isEmpty()) return;
+
+        IntObjectMap<Integer> stock = productDao.getStock(tracked);
+
+        for (int productId : tracked)
+        {
+            Integer current = stock.get(productId);
+            Long before = versions.get(productId);
+            withStripe(productId, counter -> {
+                // a product that is gone can no longer be sold
+                if (before != null && before == counter.version) counter.stock = current == null ? 0 : current;
+            });
+        }
+    }
+
+    public Stats stats()
+    {
+        long reservedUnits = 0;
+        for (Reservation reservation : reservations.values())
+        {
+            for (int quantity : reservation.quantities().values())
+            {
+                reservedUnits += quantity;
+            }
+        }
+        return new Stats(counters.size(), reservations.size(), reservedUnits, rejected.get(), expired.get());
+    }
+
+    private void expireAndSync()
+    {
+        try
+        {
+            expire();
+            sync();
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Syncing inventory failed, will retry", e);
+        }
+    }
+
+    // reads the stock of products not tracked yet, all in one go
+    private void load(Collection<Integer> productIds)
+    {
+        List<Integer> missing = new ArrayList<>();
+        for (int productId : productIds)
+        {
+            if (!counters.containsKey(productId)) missing.add(productId);
+        }
+        if (missing.isEmpty()) return;
+
+        IntObjectMap<Integer> stock = productDao.getStock(missing);
+        stock.forEach((productId, units) -> counters.putIfAbsent(productId, new Counter(units)));
+    }
+
+    private void unreserve(Reservation reservation)
+    {
+        int[] stripes = stripesOf(reservation.quantities().keySet());
+        lock(stripes);
+        try
+        {
+            reservation.quantities().forEach((productId, quantity) -> {
+                Counter counter = counters.get(productId);
+                if (counter != null) counter.reserved -= quantity;
+            });
+        }
+        finally
+        {
+            unlock(stripes);
+        }
+    }
+
+    private void withStripe(int productId, Consumer<Counter> action)
+    {
+        ReentrantLock lock = locks[productId & (STRIPES - 1)];
+        lock.lock();
+        try
+        {
+            Counter counter = counters.get(productId);
+            if (counter != null) action.accept(counter);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    // distinct stripes in ascending order; always locking in that order keeps multi-product reservations from deadlocking
+    private static int[] stripesOf(Collection<Integer> productIds)
+    {
+        return productIds.stream().mapToInt(productId -> productId & (STRIPES - 1)).distinct().sorted().toArray();
+    }
+
+    private void lock(int[] stripes)
+    {
+        for (int stripe : stripes)
+        {
+            locks[stripe].lock();
+        }
+    }
+
+    private void unlock(int[] stripes)
+    {
+        for (int i = stripes.length - 1; i >= 0; i--)
+        {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    private static final class Counter
+    {
+        private int stock;
+        private int reserved;
+        // bumped by every commit, so a sync that raced one does not overwrite it
+        private long version;
+
+        private Counter(int stock)
+        {
+            this.stock = stock;
+        }
+    }
+
+    public record Reservation(long id, Map<Integer, Integer> quantities, long expiresAtNanos) { }
+
+    public record Stats(int products, int reservations, long reservedUnits, long rejected, long expired) { }
+}
@@ -0,0 +1,59 @@
+package com.plurasight.services;
+
+import com.plurasight.data.ProductDao;
+import com.plurasight.models.BulkUpdateReport;
+import com.plurasight.models.PriceStockUpdate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Applies price and stock changes in chunks, each chunk being one batched
+ * update in its own transaction, and times every chunk for the report.
+ */
+@Service
+public class PriceStockUpdateService
+{
+    static final int CHUNK_SIZE = 500;
+
+    private final ProductDao productDao;
+
+    public PriceStockUpdateService(ProductDao productDao)
+    {
+        this.productDao = productDao;
+    }
+
+    public BulkUpdateReport apply(List<PriceStockUpdate> updates)
+    {
+        validate(updates);
+
+        BulkUpdateReport report = new BulkUpdateReport();
+        for (int from = 0; from < updates.size(); from += CHUNK_SIZE)
+        {
+            List<PriceStockUpdate> chunk = updates.subList(from, Math.min(from + CHUNK_SIZE, updates.size()));
+
+            long start = System.nanoTime();
+            int updated = productDao.updatePricesAndStock(chunk);
+            report.addChunk(chunk.size(), updated, System.nanoTime() - start);
+        }
+        return report;
+    }
+
+    // rejects the whole request up front so no chunk is committed for a bad payload
+    private static void validate(List<PriceStockUpdate> updates)
+    {
+        for (int i = 0; i < updates.size(); i++)
+        {
+            PriceStockUpdate update = updates.get(i);
+            if (update == null || update.getProductId() <= 0)
+                throw new IllegalArgumentException("Row " + i + ": productId is required");
+            if (update.getPrice() == null && update.getStock() == null)
+                throw new IllegalArgumentException("Row " + i + ": price or stock is required");
+            if (update.getPrice() != null && update.getPrice().compareTo(BigDecimal.ZERO) < 0)
+                throw new IllegalArgumentException("Row " + i + ": price must be zero or more");
+            if (update.getStock() != null && update.getStock() < 0)
+                throw new IllegalArgumentException("Row " + i + ": stock must be zero or more");
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.plurasight.services;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.plurasight.data.ProductDao;
+import com.plurasight.models.BulkImportResult;
+import com.plurasight.models.Product;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports a JSON array of products. The array is read one element at a time and
+ * inserted in chunks, each chunk being one batched insert in its own transaction,
+ * so only a single chunk is ever held in memory.
+ */
+@Service
+public class ProductImportService
+{
+    static final int CHUNK_SIZE = 500;
+
+    private final ProductDao productDao;
+    private final ObjectMapper objectMapper;
+
+    public ProductImportService(ProductDao productDao, ObjectMapper objectMapper)
+    {
+        this.productDao = productDao;
+        this.objectMapper = objectMapper;
+    }
+
+    public BulkImportResult importProducts(InputStream json) throws IOException
+    {
+        return importProducts(json, new BulkImportResult());
+    }
+
+    // fills the given result as chunks commit, so a caller still sees the committed rows if the import throws
+    public BulkImportResult importProducts(InputStream json, BulkImportResult result) throws IOException
+    {
+        List<Product> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Integer> chunkRows = new ArrayList<>(CHUNK_SIZE);
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(json))
+        {
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+                throw new IllegalArgumentException("Expected a JSON array of products");
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+            {
+                if (token == null)
+                    throw new JsonParseException(parser, "Unexpected end of input");
+
+                JsonNode node = parser.readValueAsTree();
+                int row = result.addRow();
+
+                Product product;
+                try
+                {
+                    product = objectMapper.treeToValue(node, Product.class);
+                }
+                catch (JsonProcessingException e)
+                {
+                    result.failed(row, "Invalid product: " + e.getOriginalMessage());
+                    continue;
+                }
+
+                String error = validate(product);
+                if (error != null)
+                {
+                    result.failed(row, error);
+                    continue;
+                }
+
+                chunk.add(product);
+                chunkRows.add(row);
+                if (chunk.size() == CHUNK_SIZE)
+                    insertChunk(chunk, chunkRows, result);
+            }
+        }
+        catch (JsonParseException e)
+        {
+            // keep what was already committed and report where the input broke off
+            insertChunk(chunk, chunkRows, result);
+            result.failed(result.getReceived(), "Malformed JSON, import stopped: " + e.getOriginalMessage());
+            result.finish();
+            return result;
+        }
+
+        insertChunk(chunk, chunkRows, result);
+        result.finish();
+        return result;
+    }
+
+    private void insertChunk(List<Product> chunk, List<Integer> rows, BulkImportResult result)
+    {
+        if (chunk.isEmpty()) return;
+
+        try
+        {
+            List<Integer> ids = productDao.createAll(chunk);
+            for (int i = 0; i < ids.size(); i++)
+            {
+                result.imported(rows.get(i), ids.get(i));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            // the chunk was rolled back as a whole; retry row by row to find the rows at fault,
+            // in one call so the catalog publishes the rows that made it in once
+            List<Integer> ids = productDao.createEach(chunk, (i, rowError) -> result.failed(rows.get(i), rootMessage(rowError)));
+            for (int i = 0; i < ids.size(); i++)
+            {
+                if (ids.get(i) != null) result.imported(rows.get(i), ids.get(i));
+            }
+        }
+
+        chunk.clear();
+        rows.clear();
+    }
+
+    private static String validate(Product product)
+    {
+        if (product.getName() == null || product.getName().isBlank())
+            return "name is required";
+        if (product.getPrice() == null || product.getPrice().compareTo(BigDecimal.ZERO) < 0)
+            return "price must be zero or more";
+        if (product.getCategoryId() <= 0)
+            return "categoryId is required";
+        return null;
+    }
+
+    private static String rootMessage(Throwable error)
+    {
+        Throwable root = error;
+        while (root.getCause() != null)
+        {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
@@ -0,0 +1,35 @@
+package com.plurasight.services;
+
+import com.plurasight.data.UserDao;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the username in a caller's token to their user id, so cart and order requests do not
+ * read the users table every time. Usernames never change and users are never deleted, so an
+ * id once found stays right; the map holds one small entry per user who has logged in.
+ */
+@Service
+public class UserIdCache
+{
+    private final UserDao userDao;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    public UserIdCache(UserDao userDao)
+    {
+        this.userDao = userDao;
+    }
+
+    // the user's id, or -1 when there is no such user; misses are not cached
+    public int getId(String username)
+    {
+        Integer id = ids.get(username);
+        if (id != null) return id;
+
+        int found = userDao.getIdByUsername(username);
+        if (found > 0) ids.putIfAbsent(username, found);
+        return found;
+    }
+}
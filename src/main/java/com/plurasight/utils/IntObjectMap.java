@@ -0,0 +1,185 @@
+package com.plurasight.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hash map from primitive int keys to objects, without boxing the keys.
+ * Open addressing with linear probing; removal shifts entries back instead of leaving tombstones.
+ * Null values are not allowed. Iteration order is unspecified. Not thread-safe.
+ */
+public final class IntObjectMap<V>
+{
+    private static final int MIN_CAPACITY = 8;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeAt;
+
+    public IntObjectMap()
+    {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectMap(int expectedSize)
+    {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key)
+    {
+        int slot = find(key);
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    public boolean containsKey(int key)
+    {
+        return find(key) >= 0;
+    }
+
+    // returns the previous value, or null
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value)
+    {
+        if (value == null) throw new IllegalArgumentException("null values are not supported");
+
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != null)
+        {
+            if (keys[slot] == key)
+            {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) resize(keys.length * 2);
+        return null;
+    }
+
+    // returns the removed value, or null
+    @SuppressWarnings("unchecked")
+    public V remove(int key)
+    {
+        int slot = find(key);
+        if (slot < 0) return null;
+
+        V removed = (V) values[slot];
+        int mask = keys.length - 1;
+
+        // shift later entries of the same probe run back into the gap
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null)
+        {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask))
+            {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(IntObjectConsumer<? super V> consumer)
+    {
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (values[i] != null) consumer.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<V> values()
+    {
+        List<V> result = new ArrayList<>(size);
+        for (Object value : values)
+        {
+            if (value != null) result.add((V) value);
+        }
+        return result;
+    }
+
+    private int find(int key)
+    {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != null)
+        {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize(int capacity)
+    {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldValues[i] != null) put(oldKeys[i], (V) oldValues[i]);
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize)
+    {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR) + 1;
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(needed - 1) << 1);
+    }
+
+    // ids are often sequential, so spread them before masking
+    private static int mix(int key)
+    {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @FunctionalInterface
+    public interface IntObjectConsumer<V>
+    {
+        void accept(int key, V value);
+    }
+}
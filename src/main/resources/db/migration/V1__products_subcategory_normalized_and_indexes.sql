@@ -0,0 +1,7 @@
+-- case-insensitive sub category filters compare against this column, so they can use an index
+ALTER TABLE products
+    ADD COLUMN subcategory_normalized VARCHAR(20) AS (LOWER(subcategory)) STORED;
+
+CREATE INDEX ix_products_category_price ON products (category_id, price);
+
+CREATE INDEX ix_products_category_subcategory ON products (category_id, subcategory_normalized);
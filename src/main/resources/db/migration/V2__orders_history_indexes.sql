@@ -0,0 +1,4 @@
+-- order history pages through a user's orders on (date, order_id), the admin export through a date range
+CREATE INDEX ix_orders_user_date ON orders (user_id, date, order_id);
+
+CREATE INDEX ix_orders_date ON orders (date, order_id);
@@ -0,0 +1,65 @@
+package com.plurasight.benchmarks;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/*
+    Benchmarks run against a real MySQL database (the create_database scripts in /database).
+    Override the connection with -Dbenchmark.datasource.url, .username and .password.
+    Benchmarks that write do so as users of their own, made with createUser and removed with deleteUsers.
+ */
+final class BenchmarkDataSource
+{
+    private BenchmarkDataSource()
+    {
+    }
+
+    static BasicDataSource create()
+    {
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl(System.getProperty("benchmark.datasource.url", "jdbc:mysql://localhost:3306/videogamestore"));
+        dataSource.setUsername(System.getProperty("benchmark.datasource.username", "root"));
+        dataSource.setPassword(System.getProperty("benchmark.datasource.password", "yearup"));
+        dataSource.addConnectionProperty("rewriteBatchedStatements", "true");
+        return dataSource;
+    }
+
+    // inserts a user whose name starts with the prefix and returns its id
+    static int createUser(Connection connection, String prefix) throws SQLException
+    {
+        String sql = "INSERT INTO users (username, hashed_password, role) VALUES (?, '', 'ROLE_USER')";
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS))
+        {
+            statement.setString(1, prefix + "-" + System.nanoTime());
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys())
+            {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    // removes the users with their orders and carts
+    static void deleteUsers(Connection connection, List<Integer> userIds) throws SQLException
+    {
+        if (userIds.isEmpty()) return;
+
+        String in = " IN (" + String.join(",", userIds.stream().map(String::valueOf).toList()) + ")";
+        try (Statement statement = connection.createStatement())
+        {
+            statement.executeUpdate("DELETE order_line_items FROM order_line_items" +
+                    " JOIN orders ON orders.order_id = order_line_items.order_id" +
+                    " WHERE orders.user_id" + in);
+            statement.executeUpdate("DELETE FROM orders WHERE user_id" + in);
+            statement.executeUpdate("DELETE FROM shopping_cart WHERE user_id" + in);
+            statement.executeUpdate("DELETE FROM users WHERE user_id" + in);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.plurasight.benchmarks;
+
+import com.plurasight.data.mysql.MySqlProductDao;
+import com.plurasight.data.mysql.MySqlShoppingCartDao;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Adds per second for POST /cart/products/{id}: the old sequence of product lookup, exists check and
+    increment or insert, against the single INSERT ... SELECT ... ON DUPLICATE KEY UPDATE statement.
+    Both add random products from the first few to the cart of a benchmark user made for the trial,
+    so most adds hit an existing row. The user and its cart are removed after the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Threads(4)
+@Fork(1)
+public class CartAddBenchmark
+{
+    private static final int PRODUCTS = 10;
+
+    private BasicDataSource dataSource;
+    private MySqlProductDao productDao;
+    private MySqlShoppingCartDao cartDao;
+    private int userId;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException
+    {
+        dataSource = BenchmarkDataSource.create();
+        productDao = new MySqlProductDao(dataSource);
+        cartDao = new MySqlShoppingCartDao(dataSource);
+
+        try (Connection connection = dataSource.getConnection())
+        {
+            userId = BenchmarkDataSource.createUser(connection, "cart-add-benchmark");
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearCart()
+    {
+        cartDao.clear(userId);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection())
+        {
+            BenchmarkDataSource.deleteUsers(connection, List.of(userId));
+        }
+        finally
+        {
+            dataSource.close();
+        }
+    }
+
+    // the old flow, three round trips per add: product lookup, exists check, then a plain UPDATE or INSERT
+    // concurrent first adds of a product can collide on the key, which the old endpoint answered with a 500
+    @Benchmark
+    public boolean lookupThenWrite() throws SQLException
+    {
+        int productId = randomProduct();
+        if (productDao.getById(productId) == null) return false;
+
+        if (cartDao.exists(userId, productId))
+        {
+            cartDao.incrementQuantity(userId, productId);
+            return true;
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO shopping_cart (user_id, product_id, quantity) VALUES (?, ?, 1)"))
+        {
+            statement.setInt(1, userId);
+            statement.setInt(2, productId);
+            statement.executeUpdate();
+            return true;
+        }
+        catch (SQLIntegrityConstraintViolationException e)
+        {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean singleStatementUpsert()
+    {
+        return cartDao.add(userId, randomProduct(), 1);
+    }
+
+    private static int randomProduct()
+    {
+        return ThreadLocalRandom.current().nextInt(1, PRODUCTS + 1);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(CartAddBenchmark.class.getSimpleName()).build()).run();
+    }
+}
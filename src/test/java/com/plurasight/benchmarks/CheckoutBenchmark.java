@@ -0,0 +1,145 @@
+package com.plurasight.benchmarks;
+
+import com.plurasight.data.mysql.MySqlOrderDao;
+import com.plurasight.data.mysql.MySqlShoppingCartDao;
+import com.plurasight.models.Order;
+import com.plurasight.models.OrderLineItem;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    Checkouts per second with 8 users checking out at the same time, for carts of 1, 10 and 50 lines.
+    All users buy from the same first products, so the guarded stock updates contend on the same rows,
+    as they do for a hot product on a sale day. Each thread has its own benchmark user; every
+    invocation refills that user's cart and places it as an order.
+    Stock of the products bought is raised far enough that no checkout runs out, and put back after the trial
+    together with removing the benchmark users, their carts and their orders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Threads(8)
+@Fork(1)
+public class CheckoutBenchmark
+{
+    @Param({"1", "10", "50"})
+    public int lines;
+
+    private BasicDataSource dataSource;
+    private MySqlOrderDao orderDao;
+    private MySqlShoppingCartDao cartDao;
+    private final AtomicInteger nextUser = new AtomicInteger();
+    private final List<Integer> userIds = new ArrayList<>();
+    private final Map<Integer, Integer> savedStock = new LinkedHashMap<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException
+    {
+        dataSource = BenchmarkDataSource.create();
+        orderDao = new MySqlOrderDao(dataSource);
+        cartDao = new MySqlShoppingCartDao(dataSource);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement readStock = connection.prepareStatement(
+                     "SELECT product_id, stock FROM products WHERE product_id <= ?");
+             PreparedStatement raiseStock = connection.prepareStatement(
+                     "UPDATE products SET stock = 100000000 WHERE product_id <= ?"))
+        {
+            readStock.setInt(1, lines);
+            try (ResultSet row = readStock.executeQuery())
+            {
+                while (row.next())
+                {
+                    savedStock.put(row.getInt("product_id"), row.getInt("stock"));
+                }
+            }
+            raiseStock.setInt(1, lines);
+            raiseStock.executeUpdate();
+
+            for (int i = 0; i < 8; i++)
+            {
+                userIds.add(BenchmarkDataSource.createUser(connection, "checkout-benchmark-" + i));
+            }
+        }
+    }
+
+    // puts the stock back and removes the benchmark users with their orders
+    @TearDown(Level.Trial)
+    public void close() throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement restoreStock = connection.prepareStatement(
+                     "UPDATE products SET stock = ? WHERE product_id = ?"))
+        {
+            for (Map.Entry<Integer, Integer> entry : savedStock.entrySet())
+            {
+                restoreStock.setInt(1, entry.getValue());
+                restoreStock.setInt(2, entry.getKey());
+                restoreStock.addBatch();
+            }
+            restoreStock.executeBatch();
+
+            BenchmarkDataSource.deleteUsers(connection, userIds);
+        }
+        finally
+        {
+            savedStock.clear();
+            userIds.clear();
+            dataSource.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Shopper
+    {
+        int userId;
+        Map<Integer, Integer> cart;
+
+        @Setup(Level.Trial)
+        public void setup(CheckoutBenchmark benchmark)
+        {
+            userId = benchmark.userIds.get(benchmark.nextUser.getAndIncrement() % benchmark.userIds.size());
+            cart = new LinkedHashMap<>();
+            for (int productId = 1; productId <= benchmark.lines; productId++)
+            {
+                cart.put(productId, 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public Order checkout(Shopper shopper)
+    {
+        cartDao.addAll(shopper.userId, shopper.cart);
+
+        Order order = new Order(0, shopper.userId, LocalDateTime.now().withNano(0), "1 Benchmark Way", "Dallas", "TX", "75051", BigDecimal.ZERO);
+        List<OrderLineItem> items = new ArrayList<>(shopper.cart.size());
+        shopper.cart.forEach((productId, quantity) -> items.add(new OrderLineItem(productId, quantity)));
+        order.setLineItems(items);
+
+        return orderDao.create(order);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(CheckoutBenchmark.class.getSimpleName()).build()).run();
+    }
+}
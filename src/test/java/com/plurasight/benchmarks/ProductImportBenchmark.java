@@ -0,0 +1,97 @@
+package com.plurasight.benchmarks;
+
+import com.plurasight.data.mysql.MySqlProductDao;
+import com.plurasight.models.Product;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Compares importing products one POST /products at a time (create = INSERT + re-read)
+    with the batched createAll path used by POST /products/bulk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProductImportBenchmark
+{
+    private static final String NAME_PREFIX = "bench-import-";
+    private static final int CHUNK_SIZE = 500;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private BasicDataSource dataSource;
+    private MySqlProductDao dao;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        dataSource = BenchmarkDataSource.create();
+        dao = new MySqlProductDao(dataSource);
+
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            products.add(new Product(0, NAME_PREFIX + i, new BigDecimal("19.99"), 1,
+                    "Benchmark product", "Bench", 10, false, "bench.jpg"));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteImportedProducts() throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement())
+        {
+            statement.executeUpdate("DELETE FROM products WHERE name LIKE '" + NAME_PREFIX + "%'");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException
+    {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public int perItemCreate()
+    {
+        int created = 0;
+        for (Product product : products)
+        {
+            if (dao.create(product) != null) created++;
+        }
+        return created;
+    }
+
+    @Benchmark
+    public int batchedCreateAll()
+    {
+        int created = 0;
+        for (int from = 0; from < products.size(); from += CHUNK_SIZE)
+        {
+            created += dao.createAll(products.subList(from, Math.min(from + CHUNK_SIZE, products.size()))).size();
+        }
+        return created;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(ProductImportBenchmark.class.getSimpleName()).build()).run();
+    }
+}
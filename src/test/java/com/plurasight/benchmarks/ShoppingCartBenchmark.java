@@ -0,0 +1,79 @@
+package com.plurasight.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.plurasight.models.Product;
+import com.plurasight.models.ShoppingCart;
+import com.plurasight.models.ShoppingCartItem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Cost of building a cart, reading its total and serializing it as GET /cart does, for carts of 1, 20 and 200 lines.
+    Needs no database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoppingCartBenchmark
+{
+    @Param({"1", "20", "200"})
+    public int lines;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Product[] products;
+    private ShoppingCart cart;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        products = new Product[lines];
+        for (int i = 0; i < lines; i++)
+        {
+            products[i] = new Product(i + 1, "Product " + (i + 1), new BigDecimal("19.99").add(BigDecimal.valueOf(i)), 1,
+                    "A fairly ordinary product description of moderate length.", "Black", 10, false, "product.jpg");
+        }
+        cart = build();
+    }
+
+    @Benchmark
+    public ShoppingCart add()
+    {
+        return build();
+    }
+
+    @Benchmark
+    public BigDecimal getTotal()
+    {
+        return cart.getTotal();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException
+    {
+        return objectMapper.writeValueAsBytes(cart);
+    }
+
+    private ShoppingCart build()
+    {
+        ShoppingCart built = new ShoppingCart();
+        for (Product product : products)
+        {
+            built.add(new ShoppingCartItem(product, 2));
+        }
+        return built;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder().include(ShoppingCartBenchmark.class.getSimpleName()).build()).run();
+    }
+}
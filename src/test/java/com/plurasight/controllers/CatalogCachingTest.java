@@ -0,0 +1,32 @@
+package com.plurasight.controllers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogCachingTest
+{
+    @Test
+    public void acceptsGzip_shouldHonour_qValues()
+    {
+        // assert
+        assertTrue(CatalogCaching.acceptsGzip("gzip, deflate, br"));
+        assertFalse(CatalogCaching.acceptsGzip("gzip;q=0, identity"), "Because q=0 means the coding is not acceptable.");
+        assertFalse(CatalogCaching.acceptsGzip("*;q=0.5, gzip;q=0"));
+        assertTrue(CatalogCaching.acceptsGzip("*;q=0.5"));
+        assertFalse(CatalogCaching.acceptsGzip(null));
+    }
+
+    @Test
+    public void encodedEtag_shouldGive_theGzipBody_itsOwnTag()
+    {
+        // act
+        var actual = CatalogCaching.encodedEtag("\"cs-abc-3\"", true);
+
+        // assert
+        assertEquals("\"cs-abc-3-gzip\"", actual);
+        assertFalse(CatalogCaching.isNotModified("\"cs-abc-3\"", actual), "Because the identity tag must not validate the gzip body.");
+    }
+}
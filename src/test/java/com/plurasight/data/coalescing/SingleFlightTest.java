@@ -0,0 +1,85 @@
+package com.plurasight.data.coalescing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest
+{
+    private final SingleFlight flights = new SingleFlight();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void execute_shouldShare_oneCall_betweenConcurrentCallers() throws Exception
+    {
+        // arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> flights.execute("key", () -> {
+            started.countDown();
+            await(release);
+            loads.incrementAndGet();
+            return "value";
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        // act
+        CompletableFuture<String> second = new CompletableFuture<>();
+        Thread waiter = new Thread(() -> second.complete(flights.execute("key", () -> {
+            loads.incrementAndGet();
+            return "other";
+        })));
+        waiter.start();
+        // the second caller parks once it has joined the running call
+        while (waiter.getState() != Thread.State.WAITING) Thread.onSpinWait();
+        release.countDown();
+
+        // assert
+        assertEquals("value", first.get(5, TimeUnit.SECONDS));
+        assertEquals("value", second.get(5, TimeUnit.SECONDS), "Because the second call joined the first one.");
+        assertEquals(1, loads.get());
+        assertEquals(1, flights.stats().collapsed());
+    }
+
+    @Test
+    public void execute_shouldRunAgain_afterTheCallFinished_orAfterInvalidate()
+    {
+        // act
+        flights.execute("key", loads::incrementAndGet);
+        flights.execute("key", loads::incrementAndGet);
+        flights.invalidate();
+        flights.execute("key", loads::incrementAndGet);
+
+        // assert
+        assertEquals(3, loads.get(), "Because results are not kept once a call finishes.");
+        assertEquals(0, flights.stats().collapsed());
+    }
+
+    @Test
+    public void execute_shouldRethrow_theLoaderException()
+    {
+        // act + assert
+        assertThrows(IllegalStateException.class, () -> flights.execute("key", () -> {
+            throw new IllegalStateException("down");
+        }));
+        assertEquals(0, flights.stats().inFlight(), "Because a failed call is not left behind.");
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.models.Product;
+import com.plurasight.models.ProductPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductCatalogSnapshotTest
+{
+    private ProductCatalogSnapshot snapshot;
+
+    @BeforeEach
+    public void setup()
+    {
+        snapshot = ProductCatalogSnapshot.of(List.of(
+                product(4, "49.99", 2, "Red"),
+                product(1, "499.99", 1, "Black"),
+                product(3, "19.99", 1, "black"),
+                product(2, "99.99", 1, "White"),
+                product(5, "99.99", 2, null)
+        ));
+    }
+
+    @Test
+    public void search_shouldReturn_allProducts_inProductIdOrder_withoutFilters()
+    {
+        // act
+        var actual = snapshot.search(null, null, null, null);
+
+        // assert
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(actual), "Because an unfiltered search returns the whole catalog by id.");
+    }
+
+    @Test
+    public void search_shouldIntersect_categoryPriceAndSubCategory()
+    {
+        // act
+        var actual = snapshot.search(1, new BigDecimal("10.00"), new BigDecimal("499.99"), "BLACK");
+
+        // assert
+        assertEquals(List.of(1, 3), ids(actual), "Because both black products in category 1 are within the price range.");
+    }
+
+    @Test
+    public void search_shouldInclude_priceBoundaries()
+    {
+        // act
+        var actual = snapshot.search(null, new BigDecimal("99.99"), new BigDecimal("99.99"), "");
+
+        // assert
+        assertEquals(List.of(2, 5), ids(actual), "Because min and max price are inclusive.");
+    }
+
+    @Test
+    public void searchPage_shouldContinue_afterTheCursor_untilTheLastPage()
+    {
+        // act
+        var first = snapshot.searchPage(null, null, null, null, null, 2);
+        var second = snapshot.searchPage(null, null, null, null, ProductPage.decodeCursor(first.getNextCursor()), 2);
+        var last = snapshot.searchPage(null, null, null, null, ProductPage.decodeCursor(second.getNextCursor()), 2);
+
+        // assert
+        assertEquals(List.of(1, 2), ids(first.getProducts()), "Because the first page starts at the lowest id.");
+        assertEquals(List.of(3, 4), ids(second.getProducts()), "Because the second page starts after the cursor.");
+        assertEquals(List.of(5), ids(last.getProducts()), "Because only one product is left.");
+        assertNull(last.getNextCursor(), "Because there is no page after the last one.");
+    }
+
+    @Test
+    public void facetCounts_shouldCount_categoriesSubCategoriesAndPriceBuckets()
+    {
+        // act
+        var actual = snapshot.facetCounts(null, null, new BigDecimal("100"), null);
+
+        // assert
+        assertEquals(4, actual.getTotal(), "Because four products cost 100 or less.");
+        assertEquals(Map.of(1, 2, 2, 2), actual.getCategories());
+        assertEquals(Map.of("black", 1, "red", 1, "white", 1), actual.getSubCategories());
+        assertEquals(List.of(1L, 1L, 2L, 0L, 0L, 0L), actual.getPriceBuckets().stream().map(b -> b.getCount()).toList());
+    }
+
+    @Test
+    public void with_shouldReplace_andWithout_shouldRemove_withoutChangingTheOriginal()
+    {
+        // act
+        var updated = snapshot.with(product(3, "29.99", 2, "Red")).without(1);
+
+        // assert
+        assertEquals(List.of(3, 4), ids(updated.search(2, null, null, "red")), "Because product 3 moved to category 2.");
+        assertNull(updated.getById(1), "Because product 1 was removed.");
+        assertEquals(List.of(1, 3), ids(snapshot.search(1, null, null, "black")), "Because the original snapshot is immutable.");
+    }
+
+    private static Product product(int id, String price, int categoryId, String subCategory)
+    {
+        return new Product(id, "Product " + id, new BigDecimal(price), categoryId, "", subCategory, 10, false, "");
+    }
+
+    private static List<Integer> ids(List<Product> products)
+    {
+        return products.stream().map(Product::getProductId).toList();
+    }
+}
@@ -0,0 +1,66 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.models.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductSuggestionIndexTest
+{
+    private ProductSuggestionIndex index;
+    private Product kart;
+
+    @BeforeEach
+    public void setup()
+    {
+        index = new ProductSuggestionIndex();
+        kart = product(1, "Super Mario Kart", "Racing");
+        index.add(kart);
+        index.add(product(2, "Mario Party", "Party"));
+        index.add(product(3, "Zelda", "Adventure"));
+    }
+
+    @Test
+    public void suggest_shouldMatch_nameAndLaterWords_caseInsensitive()
+    {
+        // act
+        var actual = index.suggest("MARIO", 10);
+
+        // assert
+        assertEquals(List.of(1, 2), actual, "Because 'mario kart' and 'mario party' are both terms, sorted by term.");
+    }
+
+    @Test
+    public void suggest_shouldMatch_subCategory_andRespectTheLimit()
+    {
+        // act
+        var racing = index.suggest("rac", 10);
+        var limited = index.suggest("", 10);
+        var first = index.suggest("m", 1);
+
+        // assert
+        assertEquals(List.of(1), racing, "Because the sub category is a term.");
+        assertEquals(List.of(), limited, "Because an empty prefix suggests nothing.");
+        assertEquals(List.of(1), first, "Because only one suggestion was asked for.");
+    }
+
+    @Test
+    public void remove_shouldDrop_everyTermOfTheProduct()
+    {
+        // act
+        index.remove(kart);
+
+        // assert
+        assertEquals(List.of(2), index.suggest("mario", 10));
+        assertEquals(List.of(), index.suggest("kart", 10));
+    }
+
+    private static Product product(int id, String name, String subCategory)
+    {
+        return new Product(id, name, new BigDecimal("59.99"), 1, "", subCategory, 10, false, "");
+    }
+}
@@ -0,0 +1,62 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.models.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductTextIndexTest
+{
+    private ProductTextIndex index;
+    private Product controller;
+
+    @BeforeEach
+    public void setup()
+    {
+        index = new ProductTextIndex();
+        controller = product(1, "Wireless Controller", "Rechargeable controller with a headset jack");
+        index.add(controller);
+        index.add(product(2, "Gaming Headset", "Surround sound headset for consoles"));
+        index.add(product(3, "Charging Dock", "Charges two controllers at once"));
+    }
+
+    @Test
+    public void search_shouldRank_nameMatches_aboveDescriptionMatches()
+    {
+        // act
+        var actual = index.search("headset");
+
+        // assert
+        assertEquals(List.of(2, 1), actual, "Because product 2 has headset in its name, product 1 only in its description.");
+    }
+
+    @Test
+    public void search_shouldTolerate_typos()
+    {
+        // act
+        var actual = index.search("wirelss contoller");
+
+        // assert
+        assertEquals(1, actual.get(0), "Because both misspelled words are close to words of product 1.");
+    }
+
+    @Test
+    public void remove_shouldDrop_theProduct_fromEveryTerm()
+    {
+        // act
+        index.remove(controller);
+
+        // assert
+        assertEquals(List.of(), index.search("wireless"));
+        assertEquals(List.of(2), index.search("headset"));
+    }
+
+    private static Product product(int id, String name, String description)
+    {
+        return new Product(id, name, new BigDecimal("59.99"), 1, description, "", 10, false, "");
+    }
+}
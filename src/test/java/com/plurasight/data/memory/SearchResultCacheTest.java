@@ -0,0 +1,79 @@
+package com.plurasight.data.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchResultCacheTest
+{
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SearchResultCache<String, List<Integer>> cache;
+
+    @BeforeEach
+    public void setup()
+    {
+        // holds at most 4 elements across all results, each result lives 1 second
+        cache = new SearchResultCache<>(4, 1000, List::size, now::get);
+    }
+
+    @Test
+    public void get_shouldLoadOnce_andThenHit()
+    {
+        // act
+        cache.get("a", () -> load(1, 2));
+        var actual = cache.get("a", () -> load(9));
+
+        // assert
+        assertEquals(List.of(1, 2), actual, "Because the second get is answered from the cache.");
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    public void get_shouldEvict_leastRecentlyUsed_whenOverTheWeight()
+    {
+        // arrange
+        cache.get("a", () -> load(1, 2));
+        cache.get("b", () -> load(3));
+        cache.get("a", () -> load(1, 2));
+
+        // act
+        cache.get("c", () -> load(4, 5));
+
+        // assert
+        assertEquals(1, cache.stats().evictions(), "Because b was used least recently.");
+        assertEquals(4, cache.stats().weight());
+        cache.get("a", () -> load(1, 2));
+        assertEquals(3, loads.get(), "Because a is still cached.");
+    }
+
+    @Test
+    public void get_shouldReload_afterTheTtl_andAfterClear()
+    {
+        // arrange
+        cache.get("a", () -> load(1));
+
+        // act
+        now.addAndGet(1_000_000_000L);
+        cache.get("a", () -> load(1));
+        cache.clear();
+        cache.get("a", () -> load(1));
+
+        // assert
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.stats().expirations());
+    }
+
+    private List<Integer> load(Integer... values)
+    {
+        loads.incrementAndGet();
+        return List.of(values);
+    }
+}
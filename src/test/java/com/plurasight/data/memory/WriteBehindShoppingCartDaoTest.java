@@ -0,0 +1,173 @@
+package com.plurasight.data.memory;
+
+import com.plurasight.data.ProductDao;
+import com.plurasight.data.mysql.MySqlShoppingCartDao;
+import com.plurasight.models.CartItemChange;
+import com.plurasight.models.CompactCart;
+import com.plurasight.models.Product;
+import com.plurasight.models.ShoppingCart;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteBehindShoppingCartDaoTest
+{
+    private FakeCartTable table;
+    private WriteBehindShoppingCartDao dao;
+
+    @BeforeEach
+    public void setup()
+    {
+        table = new FakeCartTable();
+        // products 1 to 3 exist
+        ProductDao products = (ProductDao) Proxy.newProxyInstance(ProductDao.class.getClassLoader(), new Class<?>[]{ProductDao.class},
+                (proxy, method, args) -> method.getName().equals("getById") && (int) args[0] <= 3 ? product((int) args[0]) : null);
+        dao = new WriteBehindShoppingCartDao(table, products, 60_000, 60_000);
+    }
+
+    @Test
+    public void add_shouldCoalesce_intoOneWritePerRow_andReadFromMemory()
+    {
+        // act
+        dao.add(1, 2, 1);
+        dao.add(1, 2, 1);
+        dao.incrementQuantity(1, 2);
+        ShoppingCart cart = dao.getByUserId(1);
+        dao.flush();
+
+        // assert
+        assertEquals(3, cart.get(2).getQuantity());
+        assertEquals(1, table.loads, "Because the cart is read from the database only once.");
+        assertEquals(List.of(new MySqlShoppingCartDao.QuantityWrite(1, 2, 3)), table.writes);
+    }
+
+    @Test
+    public void add_shouldReturnFalse_forUnknownProducts()
+    {
+        // act
+        var actual = dao.add(1, 99, 1);
+
+        // assert
+        assertFalse(actual);
+        assertEquals(0, dao.getByUserId(1).getItems().size());
+    }
+
+    @Test
+    public void applyChanges_shouldSetRemoveAndSkipUnknown_inOneFlush()
+    {
+        // arrange
+        dao.add(1, 1, 1);
+
+        // act
+        ShoppingCart cart = dao.applyChanges(1, List.of(
+                new CartItemChange(1, 0),
+                new CartItemChange(2, 4),
+                new CartItemChange(99, 1)));
+        dao.flush();
+
+        // assert
+        assertEquals(1, cart.getItems().size(), "Because product 1 was removed and product 99 does not exist.");
+        assertEquals(4, cart.get(2).getQuantity());
+        assertEquals(2, table.writes.size(), "Because adding and removing product 1 still leaves one row write.");
+    }
+
+    @Test
+    public void getCompactByUserId_shouldReturn_idsQuantitiesAndPrices()
+    {
+        // arrange
+        dao.add(1, 1, 2);
+        dao.add(1, 3, 1);
+
+        // act
+        CompactCart cart = dao.getCompactByUserId(1);
+
+        // assert
+        assertEquals(2, cart.getItems().size());
+        assertEquals(1, cart.getItems().get(0).getProductId());
+        assertEquals(new BigDecimal("19.98"), cart.getItems().get(0).getLineTotal());
+        assertEquals(new BigDecimal("29.97"), cart.getTotal());
+    }
+
+    @Test
+    public void removeOrdered_shouldKeep_whatWasAddedDuringCheckout()
+    {
+        // arrange
+        dao.add(1, 1, 2);
+        Map<Integer, Integer> ordered = Map.of(1, 2);
+        dao.add(1, 1, 1);
+        dao.add(1, 2, 1);
+
+        // act
+        dao.removeOrdered(1, ordered);
+        ShoppingCart cart = dao.getByUserId(1);
+
+        // assert
+        assertEquals(2, cart.getItems().size(), "Because the extra unit of product 1 and product 2 were not ordered.");
+        assertEquals(1, cart.get(1).getQuantity());
+    }
+
+    @Test
+    public void flush_shouldKeepTheChanges_whenTheWriteFails_andWriteClearsFirst()
+    {
+        // arrange
+        dao.add(1, 1, 1);
+        dao.clear(1);
+        dao.add(1, 3, 2);
+        table.failNext = true;
+
+        // act
+        assertThrows(RuntimeException.class, dao::flush);
+        dao.flush();
+
+        // assert
+        assertEquals(List.of(1), table.cleared, "Because the cart was cleared before product 3 was added.");
+        assertEquals(List.of(new MySqlShoppingCartDao.QuantityWrite(1, 3, 2)), table.writes);
+    }
+
+    private static Product product(int id)
+    {
+        return new Product(id, "Product " + id, new BigDecimal("9.99"), 1, "", "", 10, false, "");
+    }
+
+    private static class FakeCartTable extends MySqlShoppingCartDao
+    {
+        private int loads;
+        private boolean failNext;
+        private final List<Integer> cleared = new ArrayList<>();
+        private final List<QuantityWrite> writes = new ArrayList<>();
+
+        FakeCartTable()
+        {
+            super(null);
+        }
+
+        @Override
+        public ShoppingCart getByUserId(int userId)
+        {
+            loads++;
+            return new ShoppingCart();
+        }
+
+        @Override
+        public void saveAll(Collection<Integer> clearedUserIds, Collection<QuantityWrite> quantityWrites)
+        {
+            if (failNext)
+            {
+                failNext = false;
+                throw new RuntimeException("database down");
+            }
+            cleared.addAll(clearedUserIds);
+            writes.addAll(quantityWrites);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.plurasight.data.mysql;
+
+import com.plurasight.data.OutOfStockException;
+import com.plurasight.models.Order;
+import com.plurasight.models.OrderLineItem;
+import com.plurasight.models.OrderPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MySqlOrderDaoTest extends BaseDaoTestClass
+{
+    private MySqlOrderDao dao;
+    private MySqlProductDao productDao;
+
+    @BeforeEach
+    public void setup()
+    {
+        dao = new MySqlOrderDao(dataSource);
+        productDao = new MySqlProductDao(dataSource);
+    }
+
+    @Test
+    public void create_shouldSnapshotPrices_andTakeStock()
+    {
+        // arrange
+        Order order = order(new OrderLineItem(1, 2));
+
+        // act
+        Order actual = dao.create(order);
+
+        // assert
+        assertTrue(actual.getOrderId() > 0);
+        assertEquals(new BigDecimal("499.99"), actual.getLineItems().get(0).getSalesPrice());
+        assertEquals(48, productDao.getById(1).getStock(), "Because product 1 started with 50 in stock.");
+    }
+
+    @Test
+    public void create_shouldThrow_whenStockIsShort()
+    {
+        // arrange
+        Order order = order(new OrderLineItem(1, 51));
+
+        // act
+        var actual = assertThrows(OutOfStockException.class, () -> dao.create(order));
+
+        // assert
+        assertEquals(List.of(1), actual.getProductIds());
+    }
+
+    @Test
+    public void getByUserId_shouldPage_newestFirst_withTheirLineItems()
+    {
+        // arrange
+        Order older = dao.create(order(new OrderLineItem(1, 1)));
+        Order newer = dao.create(order(new OrderLineItem(2, 1), new OrderLineItem(3, 2)));
+
+        // act
+        OrderPage first = dao.getByUserId(1, null, 1);
+        OrderPage second = dao.getByUserId(1, OrderPage.decodeCursor(first.getNextCursor()), 1);
+
+        // assert
+        assertEquals(newer.getOrderId(), first.getOrders().get(0).getOrderId(), "Because both orders have the same date, so the higher id comes first.");
+        assertEquals(2, first.getOrders().get(0).getLineItems().size());
+        assertEquals(older.getOrderId(), second.getOrders().get(0).getOrderId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void streamByDate_shouldGroup_lineItemsPerOrder()
+    {
+        // arrange
+        dao.create(order(new OrderLineItem(1, 1), new OrderLineItem(2, 1)));
+        LocalDateTime today = LocalDateTime.now().toLocalDate().atStartOfDay();
+        List<Order> streamed = new ArrayList<>();
+
+        // act
+        dao.streamByDate(today, today.plusDays(1), streamed::add);
+
+        // assert
+        assertEquals(1, streamed.size());
+        assertEquals(2, streamed.get(0).getLineItems().size());
+    }
+
+    private static Order order(OrderLineItem... lines)
+    {
+        Order order = new Order(0, 1, LocalDateTime.now().withNano(0), "789 Oak Avenue", "Dallas", "TX", "75051", BigDecimal.ZERO);
+        order.setLineItems(List.of(lines));
+        return order;
+    }
+}
@@ -0,0 +1,27 @@
+package com.plurasight.data.mysql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SchemaMigratorTest
+{
+    @Test
+    public void statements_shouldSplit_onTrailingSemicolons_andSkipComments()
+    {
+        // arrange
+        String script = "-- a comment\n" +
+                "ALTER TABLE products\n" +
+                "    ADD COLUMN x INT;\n" +
+                "\n" +
+                "CREATE INDEX ix ON products (x);\n";
+
+        // act
+        var actual = SchemaMigrator.statements(script);
+
+        // assert
+        assertEquals(List.of("ALTER TABLE products\n    ADD COLUMN x INT", "CREATE INDEX ix ON products (x)"), actual);
+    }
+}
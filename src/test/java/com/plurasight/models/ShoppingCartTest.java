@@ -0,0 +1,50 @@
+package com.plurasight.models;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShoppingCartTest
+{
+    @Test
+    public void total_shouldFollow_addsQuantityChangesDiscountsAndRemoves()
+    {
+        // arrange
+        ShoppingCart cart = new ShoppingCart();
+
+        // act
+        cart.add(new ShoppingCartItem(product(1, "19.99"), 2));
+        cart.add(new ShoppingCartItem(product(2, "5.00"), 1));
+        cart.add(new ShoppingCartItem(product(1, "19.99"), 1));
+        cart.get(2).setDiscountPercent(new BigDecimal("10"));
+        cart.remove(1);
+        cart.add(new ShoppingCartItem(product(3, "0.10"), 3));
+
+        // assert
+        assertEquals(new BigDecimal("4.80"), cart.getTotal(), "Because 5.00 less 10% plus 3 x 0.10.");
+    }
+
+    @Test
+    public void serialize_shouldWrite_itemsByProductId_andTheTotal() throws Exception
+    {
+        // arrange
+        ShoppingCart cart = new ShoppingCart();
+        cart.add(new ShoppingCartItem(product(7, "2.50"), 2));
+
+        // act
+        String json = new ObjectMapper().writeValueAsString(cart);
+
+        // assert
+        assertTrue(json.startsWith("{\"items\":{\"7\":{\"product\":"), json);
+        assertTrue(json.endsWith("\"quantity\":2,\"discountPercent\":0,\"lineTotal\":5.00}},\"total\":5.00}"), json);
+    }
+
+    private static Product product(int id, String price)
+    {
+        return new Product(id, "Product " + id, new BigDecimal(price), 1, "", "", 10, false, "");
+    }
+}
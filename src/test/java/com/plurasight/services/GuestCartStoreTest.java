@@ -0,0 +1,74 @@
+package com.plurasight.services;
+
+import com.plurasight.models.CartItemChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GuestCartStoreTest
+{
+    private GuestCartStore store;
+
+    @BeforeEach
+    public void setup()
+    {
+        store = new GuestCartStore(2, 1);
+    }
+
+    @Test
+    public void add_andApplyChanges_shouldTrackQuantities_andLines()
+    {
+        // arrange
+        String id = store.create();
+
+        // act
+        store.add(id, 1, 1);
+        store.add(id, 1, 2);
+        store.applyChanges(id, List.of(new CartItemChange(2, 5), new CartItemChange(1, 0)));
+
+        // assert
+        assertEquals(Map.of(2, 5), store.get(id));
+        assertEquals(1, store.stats().lines());
+    }
+
+    @Test
+    public void create_shouldEvict_theLeastRecentlyUsedCart_whenFull()
+    {
+        // arrange
+        String first = store.create();
+        String second = store.create();
+        store.get(first);
+
+        // act
+        store.create();
+
+        // assert
+        assertNotNull(store.get(first), "Because the first cart was used more recently.");
+        assertNull(store.get(second));
+        assertEquals(1, store.stats().evictions());
+    }
+
+    @Test
+    public void take_shouldReturn_theCartOnce_andCountIt()
+    {
+        // arrange
+        String id = store.create();
+        store.add(id, 3, 1);
+
+        // act
+        var actual = store.take(id);
+
+        // assert
+        assertEquals(Map.of(3, 1), actual);
+        assertNull(store.take(id), "Because a cart can only be merged once.");
+        assertNull(store.get(id));
+        assertEquals(1, store.stats().merged());
+        assertEquals(0, store.stats().lines());
+    }
+}
@@ -0,0 +1,167 @@
+package com.plurasight.services;
+
+import com.plurasight.data.OutOfStockException;
+import com.plurasight.data.mysql.MySqlProductDao;
+import com.plurasight.utils.IntObjectMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InventoryServiceTest
+{
+    private FakeStockTable table;
+    private long now;
+    private InventoryService inventory;
+
+    @BeforeEach
+    public void setup()
+    {
+        table = new FakeStockTable();
+        table.stock.put(1, 5);
+        table.stock.put(2, 1);
+        inventory = new InventoryService(table, TimeUnit.SECONDS.toNanos(60), 60_000, () -> now);
+    }
+
+    @Test
+    public void reserve_shouldRejectEveryLine_whenOneIsShort()
+    {
+        // act
+        var actual = assertThrows(OutOfStockException.class, () -> inventory.reserve(Map.of(1, 2, 2, 2)));
+
+        // assert
+        assertEquals(List.of(2), actual.getProductIds());
+        assertEquals(5, inventory.available(1), "Because nothing is reserved when one line is short.");
+    }
+
+    @Test
+    public void commit_shouldTakeStock_andRelease_shouldGiveItBack()
+    {
+        // arrange
+        InventoryService.Reservation sold = inventory.reserve(Map.of(1, 2));
+        InventoryService.Reservation abandoned = inventory.reserve(Map.of(1, 3));
+
+        // act
+        inventory.commit(sold);
+        inventory.release(abandoned);
+
+        // assert
+        assertEquals(3, inventory.available(1));
+        assertFalse(inventory.release(sold), "Because a committed reservation cannot be released.");
+    }
+
+    @Test
+    public void expire_shouldRelease_reservationsPastTheTtl()
+    {
+        // arrange
+        inventory.reserve(Map.of(2, 1));
+        now += TimeUnit.SECONDS.toNanos(61);
+
+        // act
+        inventory.expire();
+
+        // assert
+        assertEquals(1, inventory.available(2));
+        assertEquals(1, inventory.stats().expired());
+    }
+
+    @Test
+    public void sync_shouldPickUp_stockChangedInTheDatabase()
+    {
+        // arrange
+        inventory.available(1);
+        table.stock.put(1, 20);
+
+        // act
+        inventory.sync();
+
+        // assert
+        assertEquals(20, inventory.available(1));
+    }
+
+    @Test
+    public void refresh_shouldLetARestockedProduct_beReservedRightAway()
+    {
+        // arrange
+        inventory.reserve(Map.of(2, 1));
+        assertThrows(OutOfStockException.class, () -> inventory.reserve(Map.of(2, 1)));
+        table.stock.put(2, 10);
+
+        // act
+        inventory.refresh(List.of(2));
+
+        // assert
+        inventory.reserve(Map.of(2, 5));
+        assertEquals(4, inventory.available(2));
+    }
+
+    @Test
+    public void reserve_shouldNeverOversell_underConcurrentRequests() throws Exception
+    {
+        // arrange
+        table.stock.put(3, 50);
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+
+        // act
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+        {
+            workers.add(threads.submit(() -> {
+                for (int attempt = 0; attempt < 100; attempt++)
+                {
+                    try
+                    {
+                        inventory.reserve(Map.of(3, 1, 1 + attempt % 2, 1));
+                        reserved.incrementAndGet();
+                    }
+                    catch (OutOfStockException ignored)
+                    {
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) worker.get();
+        threads.shutdown();
+
+        // assert
+        assertEquals(0, inventory.available(2));
+        assertEquals(0, inventory.available(1));
+        assertEquals(44, inventory.available(3), "Because product 3 was only reserved together with 1 or 2.");
+        assertEquals(6, reserved.get(), "Because products 1 and 2 only have 6 units between them.");
+    }
+
+    private static class FakeStockTable extends MySqlProductDao
+    {
+        private final Map<Integer, Integer> stock = new HashMap<>();
+
+        FakeStockTable()
+        {
+            super(null);
+        }
+
+        @Override
+        public synchronized IntObjectMap<Integer> getStock(Collection<Integer> productIds)
+        {
+            IntObjectMap<Integer> found = new IntObjectMap<>(productIds.size());
+            for (int productId : productIds)
+            {
+                if (stock.containsKey(productId)) found.put(productId, stock.get(productId));
+            }
+            return found;
+        }
+    }
+}
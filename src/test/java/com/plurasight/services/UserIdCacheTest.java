@@ -0,0 +1,76 @@
+package com.plurasight.services;
+
+import com.plurasight.data.UserDao;
+import com.plurasight.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserIdCacheTest
+{
+    private FakeUsers users;
+    private UserIdCache cache;
+
+    @BeforeEach
+    public void setup()
+    {
+        users = new FakeUsers();
+        cache = new UserIdCache(users);
+    }
+
+    @Test
+    public void getId_shouldQueryOnce_perUsername()
+    {
+        // act
+        int first = cache.getId("user");
+        int second = cache.getId("user");
+
+        // assert
+        assertEquals(3, first);
+        assertEquals(3, second);
+        assertEquals(1, users.lookups);
+    }
+
+    @Test
+    public void getId_shouldNotCache_unknownUsers()
+    {
+        // act
+        int first = cache.getId("nobody");
+        int second = cache.getId("nobody");
+
+        // assert
+        assertEquals(-1, first);
+        assertEquals(-1, second);
+        assertEquals(2, users.lookups, "Because a user registered later must still be found.");
+    }
+
+    private static class FakeUsers implements UserDao
+    {
+        int lookups;
+
+        @Override
+        public int getIdByUsername(String username)
+        {
+            lookups++;
+            return "user".equals(username) ? 3 : -1;
+        }
+
+        @Override
+        public List<User> getAll() { throw new UnsupportedOperationException(); }
+
+        @Override
+        public User getUserById(int userId) { throw new UnsupportedOperationException(); }
+
+        @Override
+        public User getByUserName(String username) { throw new UnsupportedOperationException(); }
+
+        @Override
+        public User create(User user) { throw new UnsupportedOperationException(); }
+
+        @Override
+        public boolean exists(String username) { throw new UnsupportedOperationException(); }
+    }
+}
@@ -0,0 +1,56 @@
+package com.plurasight.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IntObjectMapTest
+{
+    @Test
+    public void put_shouldReplace_andReturnThePreviousValue()
+    {
+        // arrange
+        IntObjectMap<String> map = new IntObjectMap<>();
+
+        // act
+        var first = map.put(7, "a");
+        var second = map.put(7, "b");
+
+        // assert
+        assertNull(first);
+        assertEquals("a", second);
+        assertEquals("b", map.get(7));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void map_shouldBehaveLikeHashMap_underRandomPutsAndRemoves()
+    {
+        // arrange
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // act
+        for (int i = 0; i < 20_000; i++)
+        {
+            int key = random.nextInt(500) - 250;
+            if (random.nextBoolean())
+                assertEquals(expected.put(key, i), map.put(key, i));
+            else
+                assertEquals(expected.remove(key), map.remove(key));
+        }
+
+        // assert
+        assertEquals(expected.size(), map.size());
+        for (int key = -250; key < 250; key++)
+        {
+            assertEquals(expected.get(key), map.get(key), "Because key " + key + " should match.");
+        }
+    }
+}
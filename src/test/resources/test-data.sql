@@ -35,11 +35,14 @@ CREATE TABLE products (
                           category_id INT NOT NULL,
                           description TEXT,
                           subcategory VARCHAR(20),
+                          subcategory_normalized VARCHAR(20) AS (LOWER(subcategory)) STORED,
                           image_url VARCHAR(200),
                           stock INT NOT NULL DEFAULT 0,
                           featured BOOL NOT NULL DEFAULT 0,
                           PRIMARY KEY (product_id),
-                          FOREIGN KEY (category_id) REFERENCES categories(category_id)
+                          FOREIGN KEY (category_id) REFERENCES categories(category_id),
+                          INDEX ix_products_category_price (category_id, price),
+                          INDEX ix_products_category_subcategory (category_id, subcategory_normalized)
 );
 
 CREATE TABLE orders (
@@ -52,7 +55,9 @@ CREATE TABLE orders (
                         zip VARCHAR(20) NOT NULL,
                         shipping_amount DECIMAL(10, 2) NOT NULL DEFAULT 0,
                         PRIMARY KEY (order_id),
-                        FOREIGN KEY (user_id) REFERENCES users(user_id)
+                        FOREIGN KEY (user_id) REFERENCES users(user_id),
+                        INDEX ix_orders_user_date (user_id, date, order_id),
+                        INDEX ix_orders_date (date, order_id)
 );
 
 CREATE TABLE order_line_items (